@@ -0,0 +1,91 @@
+package com.house.hunter.benchmark;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisKeyCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.core.ScanCursor;
+import org.springframework.data.redis.core.ScanIteration;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Stand-in for a Redis server behind RedisTemplate: keeps GET/SET values in a map so the template, serializers and
+// connection handling run as in production while the network round trip is left out. Sorted sets and publishing are
+// accepted but not kept, SCAN returns every key regardless of the pattern.
+final class InMemoryRedisConnectionFactory {
+    private final Map<ByteBuffer, byte[]> values = new ConcurrentHashMap<>();
+
+    RedisConnectionFactory create() {
+        RedisStringCommands stringCommands = proxy(RedisStringCommands.class, (method, args) -> switch (method.getName()) {
+            case "get" -> values.get(ByteBuffer.wrap((byte[]) args[0]));
+            case "set" -> {
+                values.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) args[1]);
+                yield Boolean.TRUE;
+            }
+            // setEx(key, seconds, value), expiry is irrelevant for the lookups measured
+            case "setEx" -> {
+                values.put(ByteBuffer.wrap((byte[]) args[0]), (byte[]) args[2]);
+                yield Boolean.TRUE;
+            }
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        RedisZSetCommands zSetCommands = proxy(RedisZSetCommands.class, (method, args) -> switch (method.getName()) {
+            case "zAdd" -> Boolean.TRUE;
+            case "zRemRangeByScore" -> 0L;
+            case "zRangeByScore" -> new LinkedHashSet<byte[]>();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        RedisKeyCommands keyCommands = proxy(RedisKeyCommands.class, (method, args) -> switch (method.getName()) {
+            case "scan" -> new ScanCursor<byte[]>((ScanOptions) args[0]) {
+                @Override
+                protected ScanIteration<byte[]> doScan(long cursorId, ScanOptions options) {
+                    return new ScanIteration<>(0, values.keySet().stream().map(ByteBuffer::array).toList());
+                }
+            }.open();
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        RedisConnection connection = proxy(RedisConnection.class, (method, args) -> switch (method.getName()) {
+            case "stringCommands" -> stringCommands;
+            case "zSetCommands" -> zSetCommands;
+            case "keyCommands" -> keyCommands;
+            case "publish" -> 0L;
+            case "close", "isClosed", "isPipelined", "isQueueing" -> Boolean.FALSE;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+        return proxy(RedisConnectionFactory.class, (method, args) -> switch (method.getName()) {
+            case "getConnection" -> connection;
+            case "getConvertPipelineAndTxResults" -> Boolean.FALSE;
+            default -> throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.isDefault()) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName();
+                };
+            }
+            return handler.handle(method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+}
@@ -0,0 +1,88 @@
+package com.house.hunter.benchmark;
+
+import com.house.hunter.constant.UserRole;
+import com.house.hunter.security.VerifiedTokenCache;
+import com.house.hunter.util.JWTUtil;
+import com.house.hunter.util.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Token checks done by JwtAuthenticationFilter on every authenticated request
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    private static final long ACCESS_EXPIRATION = 3600000L;
+
+    private JWTUtil jwtUtil;
+    private VerifiedTokenCache verifiedTokenCache;
+    private String token;
+
+    @Setup
+    public void setup() {
+        String secretKey = Base64.getEncoder().encodeToString("benchmark-secret-key-of-thirty-two-bytes".getBytes());
+        // The repository is only used when issuing tokens, which the benchmark does itself
+        jwtUtil = new JWTUtil(secretKey, ACCESS_EXPIRATION, 2592000000L, null);
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("email", "jan.novak@example.com");
+        claims.put("role", UserRole.LANDLORD);
+        claims.put("status", "VERIFIED");
+        token = Jwts.builder()
+                .setClaims(claims)
+                .setIssuedAt(Date.from(Instant.now()))
+                .setExpiration(Date.from(Instant.now().plusMillis(ACCESS_EXPIRATION)))
+                .signWith(SignatureAlgorithm.HS256, secretKey)
+                .compact();
+        verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 10000);
+        verifiedTokenCache.get(token, jwtUtil::verifyToken);
+    }
+
+    @Benchmark
+    public boolean validateTokenWithoutPrefix() {
+        return jwtUtil.validateTokenWithoutPrefix(token);
+    }
+
+    @Benchmark
+    public String getEmailFromToken() {
+        return jwtUtil.getEmailFromToken(token);
+    }
+
+    // What the filter did before: a parse for the email followed by a second one for the validation
+    @Benchmark
+    public String validateThenGetEmail() {
+        return jwtUtil.validateTokenWithoutPrefix(token) ? jwtUtil.getEmailFromToken(token) : null;
+    }
+
+    // A token the filter has not seen yet, parsed once
+    @Benchmark
+    public VerifiedToken verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    // A token the filter has already verified, the steady state of a client
+    @Benchmark
+    public VerifiedToken verifiedTokenCacheHit() {
+        return verifiedTokenCache.get(token, jwtUtil::verifyToken);
+    }
+}
@@ -0,0 +1,123 @@
+package com.house.hunter.benchmark;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.constant.PropertyStatus;
+import com.house.hunter.constant.UserAccountStatus;
+import com.house.hunter.constant.UserRole;
+import com.house.hunter.constant.UserVerificationStatus;
+import com.house.hunter.mapper.PropertyMapper;
+import com.house.hunter.mapper.UserMapper;
+import com.house.hunter.model.dto.property.GetPropertyDTO;
+import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.user.UserGetResponse;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.model.entity.User;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Hand-written mappers against the ModelMapper calls they replaced, on the conversions of the search and user endpoints
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+    private ModelMapper modelMapper;
+    private PropertyMapper propertyMapper;
+    private UserMapper userMapper;
+    private Property property;
+    private User owner;
+
+    @Setup
+    public void setup() {
+        modelMapper = new ModelMapper();
+        propertyMapper = new PropertyMapper();
+        userMapper = new UserMapper(propertyMapper);
+
+        owner = new User();
+        owner.setId(UUID.randomUUID());
+        owner.setName("Jan");
+        owner.setSurname("Novak");
+        owner.setEmail("jan.novak@example.com");
+        owner.setPhoneNumber("+420 777 123 456");
+        owner.setRole(UserRole.LANDLORD);
+        owner.setAccountStatus(UserAccountStatus.ACTIVE);
+        owner.setVerificationStatus(UserVerificationStatus.VERIFIED);
+        List<Property> properties = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            properties.add(property(i));
+        }
+        owner.setProperties(properties);
+        property = properties.get(0);
+    }
+
+    private Property property(int i) {
+        Property p = new Property();
+        p.setId(UUID.randomUUID());
+        p.setTitle("Bright flat near the park " + i);
+        p.setAddress("Vinohradska " + i);
+        p.setDistrict("Vinohrady");
+        p.setDescription("Two bedrooms, balcony, renovated kitchen and bathroom");
+        p.setPrice(25000 + i);
+        p.setSquareMeters(70);
+        p.setNumberOfRooms(3);
+        p.setFloorNumber(2);
+        p.setIsFurnished(IsFurnished.FURNISHED);
+        p.setAdType(AdType.RENTAL);
+        p.setApartmentType(ApartmentType.THREE_KK);
+        p.setStatus(PropertyStatus.VERIFIED);
+        p.setAvailableFrom(new Date());
+        p.setCreatedAt(LocalDateTime.now());
+        p.setOwner(owner);
+        return p;
+    }
+
+    @Benchmark
+    public PropertyDTO propertyDtoModelMapper() {
+        return modelMapper.map(property, PropertyDTO.class);
+    }
+
+    @Benchmark
+    public PropertyDTO propertyDtoMapper() {
+        return propertyMapper.toPropertyDTO(property, true);
+    }
+
+    @Benchmark
+    public GetPropertyDTO getPropertyDtoModelMapper() {
+        return modelMapper.map(property, GetPropertyDTO.class);
+    }
+
+    @Benchmark
+    public GetPropertyDTO getPropertyDtoMapper() {
+        return propertyMapper.toGetPropertyDTO(property);
+    }
+
+    @Benchmark
+    public UserGetResponse userGetResponseModelMapper() {
+        return modelMapper.map(owner, UserGetResponse.class);
+    }
+
+    @Benchmark
+    public UserGetResponse userGetResponseMapper() {
+        return userMapper.toUserGetResponse(owner);
+    }
+}
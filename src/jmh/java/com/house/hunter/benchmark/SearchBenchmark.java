@@ -0,0 +1,133 @@
+package com.house.hunter.benchmark;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.constant.PropertyStatus;
+import com.house.hunter.mapper.PropertyMapper;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyView;
+import com.house.hunter.model.entity.ConfirmationToken;
+import com.house.hunter.model.entity.Document;
+import com.house.hunter.model.entity.Image;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.model.entity.RefreshToken;
+import com.house.hunter.model.entity.Role;
+import com.house.hunter.model.entity.User;
+import com.house.hunter.util.PropertySpecifications;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Search request path without the database: criteria predicate building and the DTO conversion of a result page
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder criteriaBuilder;
+    private PropertySearchCriteriaDTO emptyCriteria;
+    private PropertySearchCriteriaDTO fullCriteria;
+    private PropertyMapper propertyMapper;
+    private List<PropertyView> page;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // The criteria builder only needs the mapping model, metadata access is off so no database is contacted
+        sessionFactory = new Configuration()
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .setProperty("hibernate.temp.use_jdbc_metadata_defaults", "false")
+                .setProperty("hibernate.hbm2ddl.auto", "none")
+                .addAnnotatedClass(User.class)
+                .addAnnotatedClass(Property.class)
+                .addAnnotatedClass(Image.class)
+                .addAnnotatedClass(Document.class)
+                .addAnnotatedClass(ConfirmationToken.class)
+                .addAnnotatedClass(RefreshToken.class)
+                .addAnnotatedClass(Role.class)
+                .buildSessionFactory();
+        criteriaBuilder = sessionFactory.getCriteriaBuilder();
+
+        emptyCriteria = new PropertySearchCriteriaDTO();
+        fullCriteria = new PropertySearchCriteriaDTO();
+        fullCriteria.setTitle("balcony");
+        fullCriteria.setDistrict("Vinohrady");
+        fullCriteria.setMinPrice(15000.0);
+        fullCriteria.setMaxPrice(40000.0);
+        fullCriteria.setIsFurnished(new String[]{"furnished", "semi_furnished"});
+        fullCriteria.setMinRooms(2);
+        fullCriteria.setMaxRooms(4);
+        fullCriteria.setMinFloorNumber(1);
+        fullCriteria.setAdType(new String[]{"rental"});
+        fullCriteria.setApartmentType(new String[]{"two_kk", "three_kk"});
+        fullCriteria.setQ("renovated kitchen near park");
+
+        propertyMapper = new PropertyMapper();
+        page = new ArrayList<>();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            page.add(new PropertyView(UUID.randomUUID(), "Bright flat near the park " + i, "Vinohradska " + i, 25000 + i,
+                    70, "Two bedrooms, balcony, renovated kitchen and bathroom", IsFurnished.FURNISHED, 3, 2, new Date(),
+                    AdType.RENTAL, ApartmentType.THREE_KK, "Vinohrady", 50.075, 14.44, PropertyStatus.VERIFIED,
+                    LocalDateTime.now(), UUID.randomUUID(), "Jan", "Novak", "jan.novak@example.com", "+420 777 123 456"));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate specificationEmptyCriteria() {
+        return toPredicate(PropertySpecifications.createSpecification(emptyCriteria));
+    }
+
+    @Benchmark
+    public Predicate specificationFullCriteria() {
+        return toPredicate(PropertySpecifications.createSpecification(fullCriteria));
+    }
+
+    @Benchmark
+    public List<PropertyDTO> convertPage() {
+        List<PropertyDTO> content = new ArrayList<>(page.size());
+        for (PropertyView view : page) {
+            content.add(propertyMapper.toPropertyDTO(view, true));
+        }
+        return content;
+    }
+
+    private Predicate toPredicate(Specification<Property> specification) {
+        CriteriaQuery<Property> query = criteriaBuilder.createQuery(Property.class);
+        Root<Property> root = query.from(Property.class);
+        return specification.toPredicate(root, query, criteriaBuilder);
+    }
+}
@@ -0,0 +1,83 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.PropertyPinDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Map pins of a viewport moving over Prague, properties spread over the city area
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoSearchBenchmark {
+    private static final int PIN_LIMIT = 5000;
+
+    @Param({"10000", "100000"})
+    private int properties;
+
+    private PropertyColumns columns;
+    private PropertyFilter[] viewports;
+    private PropertyFilter radius;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        columns = new PropertyColumns(properties);
+        for (int i = 0; i < properties; i++) {
+            columns.upsert(new PropertyRow(UUID.randomUUID(), "Flat " + i, "Description of flat " + i, "Street " + i,
+                    "Praha", 10000 + random.nextInt(40000), 70, 1 + random.nextInt(5), random.nextInt(10), new Date(),
+                    AdType.RENTAL, ApartmentType.TWO_KK, IsFurnished.FURNISHED, LocalDateTime.now(),
+                    49.95 + random.nextDouble() * 0.2, 14.25 + random.nextDouble() * 0.4));
+        }
+        viewports = new PropertyFilter[64];
+        for (int i = 0; i < viewports.length; i++) {
+            PropertySearchCriteriaDTO criteria = new PropertySearchCriteriaDTO();
+            double south = 49.95 + random.nextDouble() * 0.15;
+            double west = 14.25 + random.nextDouble() * 0.3;
+            criteria.setMinLatitude(south);
+            criteria.setMaxLatitude(south + 0.05);
+            criteria.setMinLongitude(west);
+            criteria.setMaxLongitude(west + 0.1);
+            viewports[i] = PropertyFilter.of(criteria);
+        }
+        PropertySearchCriteriaDTO criteria = new PropertySearchCriteriaDTO();
+        criteria.setLatitude(50.08);
+        criteria.setLongitude(14.43);
+        criteria.setRadius(2000.0);
+        radius = PropertyFilter.of(criteria);
+    }
+
+    @Benchmark
+    public List<PropertyPinDTO> viewportPins() {
+        PropertyFilter viewport = viewports[next++ & (viewports.length - 1)];
+        return columns.pins(columns.match(viewport), PIN_LIMIT);
+    }
+
+    @Benchmark
+    public int radiusMatch() {
+        return columns.match(radius).length;
+    }
+}
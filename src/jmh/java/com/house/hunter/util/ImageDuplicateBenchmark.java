@@ -0,0 +1,119 @@
+package com.house.hunter.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Duplicate check of an upload against an image directory of growing size. The upload is hashed while it is staged,
+// the check itself is a lookup of the hash in the images table, so the cost stays flat as the directory grows.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageDuplicateBenchmark {
+    private static final int IMAGE_SIZE = 64 * 1024;
+
+    @Param({"10", "100", "1000"})
+    private int images;
+
+    private Path directory;
+    private ImageUtil imageUtil;
+    private MultipartFile upload;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("image-benchmark");
+        Random random = new Random(42);
+        for (int i = 0; i < images; i++) {
+            byte[] image = new byte[IMAGE_SIZE];
+            random.nextBytes(image);
+            Files.write(directory.resolve(i + ".jpg"), image);
+        }
+        byte[] uploadBytes = new byte[IMAGE_SIZE];
+        random.nextBytes(uploadBytes);
+        upload = new BytesMultipartFile(uploadBytes);
+        // Every trial runs in its own fork, the instance is created after the property is set
+        System.setProperty("image.directory", directory.toString());
+        imageUtil = ImageUtil.getInstance();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String stage() throws IOException {
+        ImageUtil.StagedImage stagedImage = imageUtil.stage(upload);
+        imageUtil.discard(stagedImage);
+        return stagedImage.contentHash();
+    }
+
+    private record BytesMultipartFile(byte[] bytes) implements MultipartFile {
+        @Override
+        public String getName() {
+            return "image";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return "upload.jpg";
+        }
+
+        @Override
+        public String getContentType() {
+            return "image/jpeg";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return bytes.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return bytes.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.write(dest.toPath(), bytes);
+        }
+    }
+}
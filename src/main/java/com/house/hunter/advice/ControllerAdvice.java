@@ -1,5 +1,6 @@
 package com.house.hunter.advice;
 
+import com.house.hunter.exception.AuthenticationUnavailableException;
 import com.house.hunter.exception.DocumentAlreadyExistsException;
 import com.house.hunter.exception.DocumentNotFoundException;
 import com.house.hunter.exception.FileOperationException;
@@ -16,6 +17,8 @@ import com.house.hunter.exception.MailServiceException;
 import com.house.hunter.exception.NoPropertyRequestFoundException;
 import com.house.hunter.exception.PropertyAlreadyExistsException;
 import com.house.hunter.exception.PropertyNotVerifiedException;
+import com.house.hunter.exception.SavedSearchNotFoundException;
+import com.house.hunter.exception.TooManyAuthenticationRequestsException;
 import com.house.hunter.exception.UserAlreadyExistsException;
 import com.house.hunter.exception.UserNotFoundException;
 import com.house.hunter.model.dto.error.ErrorDto;
@@ -26,6 +29,7 @@ import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.UnexpectedTypeException;
 import org.postgresql.util.PSQLException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
@@ -99,6 +103,18 @@ public final class ControllerAdvice {
         return ResponseEntity.status(error.getStatus()).body(error);
     }
 
+    @ExceptionHandler(TooManyAuthenticationRequestsException.class)
+    public ResponseEntity<ErrorDto> handleTooManyAuthenticationRequestsException(TooManyAuthenticationRequestsException ex) {
+        final ErrorDto error = new ErrorDto(HttpStatus.TOO_MANY_REQUESTS.value(), ex.getMessage(), List.of(ex.getMessage()));
+        return ResponseEntity.status(error.getStatus()).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
+    @ExceptionHandler(AuthenticationUnavailableException.class)
+    public ResponseEntity<ErrorDto> handleAuthenticationUnavailableException(AuthenticationUnavailableException ex) {
+        final ErrorDto error = new ErrorDto(HttpStatus.SERVICE_UNAVAILABLE.value(), ex.getMessage(), List.of(ex.getMessage()));
+        return ResponseEntity.status(error.getStatus()).header(HttpHeaders.RETRY_AFTER, "5").body(error);
+    }
+
     @ExceptionHandler(IllegalRequestException.class)
     public ResponseEntity<ErrorDto> handleValidationException(IllegalRequestException ex) {
         final ErrorDto error = new ErrorDto(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), List.of(ex.getMessage()));
@@ -141,6 +157,12 @@ public final class ControllerAdvice {
         return ResponseEntity.status(error.getStatus()).body(error);
     }
 
+    @ExceptionHandler(SavedSearchNotFoundException.class)
+    public ResponseEntity<ErrorDto> handleValidationException(SavedSearchNotFoundException ex) {
+        final ErrorDto error = new ErrorDto(HttpStatus.NOT_FOUND.value(), ex.getMessage(), List.of(ex.getMessage()));
+        return ResponseEntity.status(error.getStatus()).body(error);
+    }
+
     @ExceptionHandler(InvalidDocumentTypeException.class)
     public ResponseEntity<ErrorDto> handleValidationException(InvalidDocumentTypeException ex) {
         final ErrorDto error = new ErrorDto(HttpStatus.BAD_REQUEST.value(), ex.getMessage(), List.of(ex.getMessage()));
@@ -0,0 +1,25 @@
+package com.house.hunter.config;
+
+import com.house.hunter.storage.BlobStore;
+import com.house.hunter.util.ImageUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@ConditionalOnProperty(name = "image.blob-store.enabled", havingValue = "true")
+public class BlobStoreConfig {
+    @Value("${image.blob-store.segment-size}")
+    private long segmentSize;
+
+    @Value("${image.blob-store.max-blob-size}")
+    private long maxBlobSize;
+
+    @Bean(destroyMethod = "close")
+    public BlobStore imageBlobStore() throws IOException {
+        return ImageUtil.getInstance().openBlobStore(segmentSize, maxBlobSize);
+    }
+}
@@ -1,17 +1,11 @@
 package com.house.hunter.config;
 
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.modelmapper.ModelMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class MapperConfig {
-    @Bean(name = "modelMapper")
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
     @Bean(name = "objectMapper")
     public com.fasterxml.jackson.databind.ObjectMapper objectMapper() {
         com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
@@ -1,9 +1,9 @@
 package com.house.hunter.config;
 
 import com.house.hunter.repository.UserRepository;
+import com.house.hunter.security.BoundedPasswordEncoder;
 import com.house.hunter.security.JwtAuthenticationFilter;
 import com.house.hunter.security.UserDetailsServiceImpl;
-import com.house.hunter.util.PasswordEncoder;
 import com.house.hunter.util.SecretKeyUtil;
 import lombok.AllArgsConstructor;
 import org.springframework.context.annotation.Bean;
@@ -17,8 +17,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -35,9 +33,10 @@ import java.util.List;
 public class SecurityConfig {
     private final UserRepository userRepository;
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final BoundedPasswordEncoder passwordEncoder;
 
     @Bean
-    public UserDetailsService userDetailsService() {
+    public UserDetailsServiceImpl userDetailsService() {
         return new UserDetailsServiceImpl(userRepository);
     }
 
@@ -50,6 +49,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/v1/auth/**").permitAll()
                         .requestMatchers("/api/v1/property/**").permitAll()
                         .requestMatchers("/swagger-ui/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().permitAll()
                 )
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
@@ -64,7 +64,9 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authenticationProvider = new DaoAuthenticationProvider();
         authenticationProvider.setUserDetailsService(userDetailsService());
-        authenticationProvider.setPasswordEncoder(passwordEncoder());
+        authenticationProvider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes the password on login when its hash is below the configured strength
+        authenticationProvider.setUserDetailsPasswordService(userDetailsService());
         return authenticationProvider;
     }
 
@@ -97,11 +99,5 @@ public class SecurityConfig {
     public SecretKeyUtil secretKeyGenerator() {
         return new SecretKeyUtil();
     }
-
-
-    @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return PasswordEncoder.getPasswordEncoder();
-    }
 }
 
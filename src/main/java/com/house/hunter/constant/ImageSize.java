@@ -0,0 +1,28 @@
+package com.house.hunter.constant;
+
+import com.house.hunter.exception.IllegalRequestException;
+
+// Renditions of an uploaded image, each fits its longest edge into maxEdge pixels
+public enum ImageSize {
+    SMALL(320),
+    MEDIUM(800),
+    LARGE(1600);
+
+    private final int maxEdge;
+
+    ImageSize(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+
+    public static ImageSize from(String size) {
+        try {
+            return ImageSize.valueOf(size.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalRequestException("Invalid image size: " + size + ", expected small, medium or large");
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.house.hunter.constant;
+
+public enum RenditionStatus {
+    PENDING,
+    READY,
+    // The file could not be decoded, only the original is served
+    FAILED
+}
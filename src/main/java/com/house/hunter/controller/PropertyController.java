@@ -1,19 +1,30 @@
 package com.house.hunter.controller;
 
 
+import com.house.hunter.constant.ImageSize;
 import com.house.hunter.model.dto.property.CreatePropertyDTO;
 import com.house.hunter.model.dto.property.GetPropertyDTO;
+import com.house.hunter.model.dto.property.PropertyImageDTO;
 import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
 import com.house.hunter.model.dto.property.UpdatePropertyDTO;
 import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyPinsDTO;
+import com.house.hunter.model.dto.search.PropertyScrollDTO;
 import com.house.hunter.service.ImageService;
 import com.house.hunter.service.PropertyService;
+import com.house.hunter.storage.StoredVersion;
+import com.house.hunter.storage.ImageCache;
+import com.house.hunter.util.FileTransfer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -29,23 +40,28 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/v1/properties")
 public class PropertyController {
+    private static final CacheControl IMMUTABLE_IMAGE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
 
     private final PropertyService propertyService;
     private final ImageService imageService;
+    private final ImageCache imageCache;
 
     @Autowired
-    public PropertyController(PropertyService propertyService, ImageService imageService) {
+    public PropertyController(PropertyService propertyService, ImageService imageService, ImageCache imageCache) {
         this.propertyService = propertyService;
         this.imageService = imageService;
+        this.imageCache = imageCache;
     }
 
     @GetMapping("/details")
@@ -64,9 +80,29 @@ public class PropertyController {
 
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    @Operation(summary = "Search properties")
-    public Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO criteria, Pageable pageable) {
-        return propertyService.searchProperties(criteria, pageable);
+    @Operation(summary = "Search properties, optionally with facet counts for the filters")
+    public Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO criteria, Pageable pageable,
+                                              @RequestParam(defaultValue = "false") boolean facets) {
+        return propertyService.searchProperties(criteria, pageable, facets);
+    }
+
+    @GetMapping("/scroll")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Search properties with a continuation cursor, for infinite scrolling",
+            description = "Properties without a value for the sort property are not returned")
+    public PropertyScrollDTO scrollProperties(PropertySearchCriteriaDTO criteria,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "createdAt,desc") String sort,
+                                              @RequestParam(defaultValue = "20") int size) {
+        return propertyService.scrollProperties(criteria, cursor, sort, size);
+    }
+
+    @GetMapping("/pins")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get map pins of the properties in a bounding box, radius or polygon")
+    public PropertyPinsDTO getPropertyPins(PropertySearchCriteriaDTO criteria,
+                                           @RequestParam(defaultValue = "1000") int limit) {
+        return propertyService.getPropertyPins(criteria, limit);
     }
 
     @GetMapping("/{email}")
@@ -128,6 +164,27 @@ public class PropertyController {
         return ResponseEntity.ok(imageService.getImages(propertyId));
     }
 
+    @GetMapping("/{propertyId}/images/links")
+    @ResponseStatus(HttpStatus.OK)
+    @Operation(summary = "Get the ids and urls of the images of a property, to load each image separately")
+    public List<PropertyImageDTO> getImageLinks(@PathVariable UUID propertyId) {
+        return imageService.getImageLinks(propertyId);
+    }
+
+    @GetMapping("/{propertyId}/images/{imageId}")
+    @Operation(summary = "Stream an image of a property, byte ranges and conditional requests are supported. The size parameter (small, medium or large) selects a rendition")
+    public void getImage(@PathVariable UUID propertyId, @PathVariable UUID imageId,
+                         @RequestParam(required = false) String size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StoredVersion version = imageService.getImageVersion(propertyId, imageId, size == null ? null : ImageSize.from(size));
+        // A pending rendition is revalidated, the original served in its place is replaced once it is rendered
+        response.setHeader(HttpHeaders.CACHE_CONTROL, (version.immutable() ? IMMUTABLE_IMAGE : CacheControl.noCache()).getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(version.eTag(), version.lastModified())) {
+            return;
+        }
+        FileTransfer.send(imageService.getImageFile(version), imageCache, request, response);
+    }
+
     @DeleteMapping("/{propertyId}/images/{imageId}")
     @Operation(summary = "Delete image of a property")
     @PreAuthorize("hasAnyRole('ADMIN','LANDLORD')")
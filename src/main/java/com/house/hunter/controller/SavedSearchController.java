@@ -0,0 +1,57 @@
+package com.house.hunter.controller;
+
+import com.house.hunter.model.dto.search.CreateSavedSearchDTO;
+import com.house.hunter.model.dto.search.SavedSearchDTO;
+import com.house.hunter.service.SavedSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/saved-searches")
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    @Autowired
+    public SavedSearchController(SavedSearchService savedSearchService) {
+        this.savedSearchService = savedSearchService;
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN','LANDLORD','TENANT')")
+    @Operation(summary = "Save a search, the user is mailed when a new property matching it is verified")
+    public ResponseEntity<UUID> createSavedSearch(@RequestBody @Valid CreateSavedSearchDTO createSavedSearchDTO) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(savedSearchService.createSavedSearch(createSavedSearchDTO));
+    }
+
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    @PreAuthorize("hasAnyRole('ADMIN','LANDLORD','TENANT')")
+    @Operation(summary = "Get the saved searches of the authenticated user")
+    public List<SavedSearchDTO> getSavedSearches() {
+        return savedSearchService.getSavedSearches();
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PreAuthorize("hasAnyRole('ADMIN','LANDLORD','TENANT')")
+    @Operation(summary = "Delete a saved search")
+    public void deleteSavedSearch(@PathVariable UUID id) {
+        savedSearchService.deleteSavedSearch(id);
+    }
+}
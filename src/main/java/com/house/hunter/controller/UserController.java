@@ -8,6 +8,7 @@ import com.house.hunter.model.dto.user.UserGetResponse;
 import com.house.hunter.model.dto.user.UserPasswordUpdateDTO;
 import com.house.hunter.model.dto.user.UserRegistrationDto;
 import com.house.hunter.service.UserService;
+import com.house.hunter.storage.StoredVersion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,6 +20,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -37,6 +39,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -51,6 +54,10 @@ import java.util.UUID;
 @Validated
 @Tag(name = "User Controller", description = "Endpoints for user management")
 public class UserController {
+    // Revalidated on every use, a deleted document or a revoked admin role must not be served from a cache.
+    // Unchanged documents are answered with 304 through their ETag.
+    private static final CacheControl REVALIDATED_DOCUMENT = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
 
     @GetMapping
@@ -115,13 +122,19 @@ public class UserController {
     @Operation(summary = "Download document")
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasAnyRole('ADMIN')")
-    public ResponseEntity<Resource> downloadDocument(@PathVariable(value = "documentName") @NotEmpty String documentName) {
+    public ResponseEntity<Resource> downloadDocument(@PathVariable(value = "documentName") @NotEmpty String documentName,
+                                                     WebRequest webRequest) {
+        StoredVersion version = userService.getDocumentVersion(documentName);
+        if (webRequest.checkNotModified(version.eTag(), version.lastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(REVALIDATED_DOCUMENT).build();
+        }
         Resource file = userService.downloadFile(documentName);
         if (file == null) {
             return ResponseEntity.notFound().build();
         } else {
             return ResponseEntity.ok()
                     .contentType(MediaType.APPLICATION_PDF)
+                    .cacheControl(REVALIDATED_DOCUMENT)
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFilename() + "\"")
                     .body(file);
         }
@@ -0,0 +1,15 @@
+package com.house.hunter.event;
+
+import java.util.List;
+
+public class ImageFilesReleasedEvent {
+    private final List<String> filenames;
+
+    public ImageFilesReleasedEvent(List<String> filenames) {
+        this.filenames = filenames;
+    }
+
+    public List<String> getFilenames() {
+        return filenames;
+    }
+}
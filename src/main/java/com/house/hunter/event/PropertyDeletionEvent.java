@@ -0,0 +1,15 @@
+package com.house.hunter.event;
+
+import com.house.hunter.model.entity.Property;
+
+public class PropertyDeletionEvent {
+    private final Property property;
+
+    public PropertyDeletionEvent(Property property) {
+        this.property = property;
+    }
+
+    public Property getProperty() {
+        return property;
+    }
+}
@@ -0,0 +1,9 @@
+package com.house.hunter.event;
+
+import lombok.Data;
+
+// The account state an authenticated principal is built from has changed, or the account was deleted
+@Data
+public class UserAccountChangedEvent {
+    private final String email;
+}
@@ -0,0 +1,8 @@
+package com.house.hunter.exception;
+
+public final class AuthenticationUnavailableException extends RuntimeException {
+
+    public AuthenticationUnavailableException() {
+        super("Authentication is temporarily unavailable, please try again shortly");
+    }
+}
@@ -0,0 +1,8 @@
+package com.house.hunter.exception;
+
+public final class SavedSearchNotFoundException extends RuntimeException {
+    public SavedSearchNotFoundException() {
+        super("Saved search not found");
+    }
+
+}
@@ -0,0 +1,8 @@
+package com.house.hunter.exception;
+
+public final class TooManyAuthenticationRequestsException extends RuntimeException {
+
+    public TooManyAuthenticationRequestsException() {
+        super("Too many authentication requests, please try again shortly");
+    }
+}
@@ -0,0 +1,154 @@
+package com.house.hunter.mapper;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.property.CreatePropertyDTO;
+import com.house.hunter.model.dto.property.GetPropertyDTO;
+import com.house.hunter.model.dto.property.GetPropertyRequestDTO;
+import com.house.hunter.model.dto.property.UpdatePropertyDTO;
+import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyView;
+import com.house.hunter.model.dto.search.UserDTO;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.model.entity.User;
+import org.springframework.stereotype.Component;
+
+// Plain field copies replacing the reflective ModelMapper, the output matches what ModelMapper produced for these pairs
+@Component
+public class PropertyMapper {
+
+    // The owner is resolved by the caller from the owner email
+    public Property toProperty(CreatePropertyDTO dto) {
+        Property property = new Property();
+        property.setTitle(dto.getTitle());
+        property.setAddress(dto.getAddress());
+        property.setPrice(dto.getPrice());
+        property.setSquareMeters(dto.getSquareMeters());
+        property.setDescription(dto.getDescription());
+        property.setIsFurnished(dto.getIsFurnished() == null ? null : IsFurnished.valueOf(dto.getIsFurnished()));
+        property.setDistrict(dto.getDistrict());
+        property.setLatitude(dto.getLatitude());
+        property.setLongitude(dto.getLongitude());
+        property.setNumberOfRooms(dto.getNumberOfRooms());
+        property.setFloorNumber(dto.getFloorNumber());
+        property.setAvailableFrom(dto.getAvailableFrom());
+        property.setAdType(dto.getAdType() == null ? null : AdType.valueOf(dto.getAdType()));
+        property.setApartmentType(dto.getApartmentType() == null ? null : ApartmentType.valueOf(dto.getApartmentType()));
+        return property;
+    }
+
+    public UpdatePropertyDTO toUpdatePropertyDTO(Property property) {
+        return new UpdatePropertyDTO(property.getTitle(), property.getAddress(), property.getPrice(),
+                property.getSquareMeters(), property.getDescription(), name(property.getIsFurnished()),
+                property.getDistrict(), property.getNumberOfRooms(), property.getFloorNumber(),
+                property.getAvailableFrom(), name(property.getAdType()), name(property.getApartmentType()));
+    }
+
+    // The ownership document is left empty, callers that expose it set it themselves
+    public GetPropertyDTO toGetPropertyDTO(Property property) {
+        return new GetPropertyDTO(property.getId(), property.getTitle(), property.getAddress(), property.getPrice(),
+                property.getSquareMeters(), property.getDescription(), name(property.getIsFurnished()),
+                property.getNumberOfRooms(), property.getFloorNumber(), property.getAvailableFrom(),
+                name(property.getAdType()), name(property.getApartmentType()), ownerEmail(property.getOwner()),
+                property.getDistrict(), name(property.getStatus()), null);
+    }
+
+    public GetPropertyDTO toGetPropertyDTO(PropertyView property) {
+        return new GetPropertyDTO(property.id(), property.title(), property.address(), property.price(),
+                property.squareMeters(), property.description(), name(property.isFurnished()), property.numberOfRooms(),
+                property.floorNumber(), property.availableFrom(), name(property.adType()), name(property.apartmentType()),
+                property.ownerEmail(), property.district(), name(property.status()), property.documentFilename());
+    }
+
+    public GetPropertyRequestDTO toGetPropertyRequestDTO(Property property) {
+        GetPropertyRequestDTO dto = new GetPropertyRequestDTO();
+        dto.setId(property.getId());
+        dto.setTitle(property.getTitle());
+        dto.setAddress(property.getAddress());
+        dto.setPrice(property.getPrice());
+        dto.setSquareMeters(property.getSquareMeters());
+        dto.setDescription(property.getDescription());
+        dto.setIsFurnished(name(property.getIsFurnished()));
+        dto.setNumberOfRooms(property.getNumberOfRooms());
+        dto.setFloorNumber(property.getFloorNumber());
+        dto.setAvailableFrom(property.getAvailableFrom());
+        dto.setAdType(name(property.getAdType()));
+        dto.setApartmentType(name(property.getApartmentType()));
+        dto.setOwnerEmail(ownerEmail(property.getOwner()));
+        dto.setDistrict(property.getDistrict());
+        dto.setStatus(name(property.getStatus()));
+        return dto;
+    }
+
+    // Owner contact details, including the phone number, are only filled in when includeOwner is set
+    public PropertyDTO toPropertyDTO(Property property, boolean includeOwner) {
+        PropertyDTO dto = new PropertyDTO();
+        dto.setId(property.getId());
+        dto.setTitle(property.getTitle());
+        dto.setAddress(property.getAddress());
+        dto.setPrice(property.getPrice());
+        dto.setSquareMeters(property.getSquareMeters());
+        dto.setDescription(property.getDescription());
+        dto.setIsFurnished(name(property.getIsFurnished()));
+        dto.setNumberOfRooms(property.getNumberOfRooms());
+        dto.setFloorNumber(property.getFloorNumber());
+        dto.setAvailableFrom(property.getAvailableFrom());
+        dto.setAdType(name(property.getAdType()));
+        dto.setApartmentType(name(property.getApartmentType()));
+        dto.setDistrict(property.getDistrict());
+        dto.setLatitude(property.getLatitude());
+        dto.setLongitude(property.getLongitude());
+        if (includeOwner && property.getOwner() != null) {
+            dto.setOwner(toUserDTO(property.getOwner()));
+        }
+        return dto;
+    }
+
+    public PropertyDTO toPropertyDTO(PropertyView property, boolean includeOwner) {
+        PropertyDTO dto = new PropertyDTO();
+        dto.setId(property.id());
+        dto.setTitle(property.title());
+        dto.setAddress(property.address());
+        dto.setPrice(property.price());
+        dto.setSquareMeters(property.squareMeters());
+        dto.setDescription(property.description());
+        dto.setIsFurnished(name(property.isFurnished()));
+        dto.setNumberOfRooms(property.numberOfRooms());
+        dto.setFloorNumber(property.floorNumber());
+        dto.setAvailableFrom(property.availableFrom());
+        dto.setAdType(name(property.adType()));
+        dto.setApartmentType(name(property.apartmentType()));
+        dto.setDistrict(property.district());
+        dto.setLatitude(property.latitude());
+        dto.setLongitude(property.longitude());
+        if (includeOwner) {
+            UserDTO owner = new UserDTO();
+            owner.setId(property.ownerId());
+            owner.setName(property.ownerName());
+            owner.setSurname(property.ownerSurname());
+            owner.setEmail(property.ownerEmail());
+            owner.setPhoneNumber(property.ownerPhoneNumber());
+            dto.setOwner(owner);
+        }
+        return dto;
+    }
+
+    public UserDTO toUserDTO(User user) {
+        UserDTO dto = new UserDTO();
+        dto.setId(user.getId());
+        dto.setName(user.getName());
+        dto.setSurname(user.getSurname());
+        dto.setEmail(user.getEmail());
+        dto.setPhoneNumber(user.getPhoneNumber());
+        return dto;
+    }
+
+    private static String ownerEmail(User owner) {
+        return owner == null ? null : owner.getEmail();
+    }
+
+    static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+}
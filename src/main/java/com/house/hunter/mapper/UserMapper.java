@@ -0,0 +1,52 @@
+package com.house.hunter.mapper;
+
+import com.house.hunter.constant.UserRole;
+import com.house.hunter.model.dto.user.CreateAdminDTO;
+import com.house.hunter.model.dto.user.GetAllUsersResponse;
+import com.house.hunter.model.dto.user.UserGetResponse;
+import com.house.hunter.model.dto.user.UserRegistrationDto;
+import com.house.hunter.model.entity.User;
+import org.springframework.stereotype.Component;
+
+// Plain field copies replacing the reflective ModelMapper, the output matches what ModelMapper produced for these pairs
+@Component
+public class UserMapper {
+    private final PropertyMapper propertyMapper;
+
+    public UserMapper(PropertyMapper propertyMapper) {
+        this.propertyMapper = propertyMapper;
+    }
+
+    public User toUser(UserRegistrationDto dto) {
+        User user = new User();
+        user.setName(dto.getName());
+        user.setSurname(dto.getSurname());
+        user.setEmail(dto.getEmail());
+        user.setPhoneNumber(dto.getPhoneNumber());
+        user.setRole(dto.getRole() == null ? null : UserRole.valueOf(dto.getRole()));
+        user.setPassword(dto.getPassword());
+        return user;
+    }
+
+    public User toUser(CreateAdminDTO dto) {
+        User user = new User();
+        user.setName(dto.getName());
+        user.setSurname(dto.getSurname());
+        user.setEmail(dto.getEmail());
+        user.setPassword(dto.getPassword());
+        return user;
+    }
+
+    public GetAllUsersResponse toGetAllUsersResponse(User user) {
+        return new GetAllUsersResponse(user.getId() == null ? null : user.getId().toString(), user.getName(),
+                user.getSurname(), user.getEmail(), user.getPhoneNumber(), user.getRole(), user.getAccountStatus(),
+                user.getVerificationStatus());
+    }
+
+    public UserGetResponse toUserGetResponse(User user) {
+        return new UserGetResponse(user.getId() == null ? null : user.getId().toString(), user.getName(),
+                user.getSurname(), user.getEmail(), user.getPhoneNumber(), user.getRole(), user.getAccountStatus(),
+                user.getVerificationStatus(),
+                user.getProperties() == null ? null : user.getProperties().stream().map(propertyMapper::toGetPropertyDTO).toList());
+    }
+}
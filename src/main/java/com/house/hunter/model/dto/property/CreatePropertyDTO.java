@@ -3,6 +3,7 @@ package com.house.hunter.model.dto.property;
 import com.house.hunter.constant.AdType;
 import com.house.hunter.constant.ApartmentType;
 import com.house.hunter.constant.IsFurnished;
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.FutureOrPresent;
@@ -50,6 +51,14 @@ public class CreatePropertyDTO {
     @NotEmpty(message = "District info cannot be empty")
     private String district;
 
+    @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+    @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+    private Double latitude;
+
+    @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+    @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+    private Double longitude;
+
     @NotNull(message = "Number of rooms is required")
     @Positive(message = "Number of rooms must be positive")
     private int numberOfRooms;
@@ -0,0 +1,16 @@
+package com.house.hunter.model.dto.property;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyImageDTO {
+    private UUID id;
+    // Path of the endpoint that streams the image
+    private String url;
+}
@@ -16,6 +16,8 @@ import java.util.Date;
 @Getter
 @Setter
 public class PropertySearchCriteriaDTO {
+    // Free text matched against title, description, address and district, results are ranked by relevance
+    private String q;
     private String title;
     private Double minPrice;
     private Double maxPrice;
@@ -35,4 +37,15 @@ public class PropertySearchCriteriaDTO {
     private String ownerEmail;
     private String district;
     private String status;
+    // Radius search, the radius is given in meters
+    private Double latitude;
+    private Double longitude;
+    private Double radius;
+    // Bounding box of a map viewport
+    private Double minLatitude;
+    private Double maxLatitude;
+    private Double minLongitude;
+    private Double maxLongitude;
+    // Vertices as "lat,lng;lat,lng;lat,lng"
+    private String polygon;
 }
@@ -0,0 +1,20 @@
+package com.house.hunter.model.dto.search;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateSavedSearchDTO {
+    @NotBlank(message = "Name is required")
+    @Size(max = 100, message = "Name must be at most 100 characters")
+    private String name;
+    @NotNull(message = "Criteria are required")
+    private PropertySearchCriteriaDTO criteria;
+}
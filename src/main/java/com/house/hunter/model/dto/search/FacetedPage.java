@@ -0,0 +1,20 @@
+package com.house.hunter.model.dto.search;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// Search page with the facet counts of the whole result set, facets are null when they were not requested
+public class FacetedPage<T> extends PageImpl<T> {
+    private final transient PropertyFacetsDTO facets;
+
+    public FacetedPage(List<T> content, Pageable pageable, long total, PropertyFacetsDTO facets) {
+        super(content, pageable, total);
+        this.facets = facets;
+    }
+
+    public PropertyFacetsDTO getFacets() {
+        return facets;
+    }
+}
@@ -21,4 +21,6 @@ public class PropertyDTO {
     private String apartmentType;
     private UserDTO owner;
     private String district;
+    private Double latitude;
+    private Double longitude;
 }
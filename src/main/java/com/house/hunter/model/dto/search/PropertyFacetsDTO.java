@@ -0,0 +1,18 @@
+package com.house.hunter.model.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyFacetsDTO {
+    private Map<String, Long> adType;
+    private Map<String, Long> apartmentType;
+    private Map<String, Long> isFurnished;
+    private Map<Integer, Long> numberOfRooms;
+    private Map<String, Long> price;
+}
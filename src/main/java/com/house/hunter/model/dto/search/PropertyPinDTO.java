@@ -0,0 +1,17 @@
+package com.house.hunter.model.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyPinDTO {
+    private UUID id;
+    private double latitude;
+    private double longitude;
+    private double price;
+}
@@ -0,0 +1,17 @@
+package com.house.hunter.model.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyPinsDTO {
+    private List<PropertyPinDTO> pins;
+    // Number of matching properties, more than the pins when the limit cut them off
+    private long total;
+    private boolean truncated;
+}
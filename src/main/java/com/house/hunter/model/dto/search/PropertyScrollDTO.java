@@ -0,0 +1,16 @@
+package com.house.hunter.model.dto.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PropertyScrollDTO {
+    private List<PropertyDTO> content;
+    private String nextCursor;
+    private boolean hasNext;
+}
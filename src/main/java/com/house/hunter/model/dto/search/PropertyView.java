@@ -0,0 +1,47 @@
+package com.house.hunter.model.dto.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.constant.PropertyStatus;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+// Read model of a property with its owner joined in, selected in one statement instead of loading entities
+public record PropertyView(UUID id,
+                           String title,
+                           String address,
+                           double price,
+                           int squareMeters,
+                           String description,
+                           IsFurnished isFurnished,
+                           int numberOfRooms,
+                           int floorNumber,
+                           Date availableFrom,
+                           AdType adType,
+                           ApartmentType apartmentType,
+                           String district,
+                           Double latitude,
+                           Double longitude,
+                           PropertyStatus status,
+                           LocalDateTime createdAt,
+                           UUID ownerId,
+                           String ownerName,
+                           String ownerSurname,
+                           String ownerEmail,
+                           String ownerPhoneNumber,
+                           String documentFilename) {
+
+    // Used by the queries that do not join the ownership document
+    public PropertyView(UUID id, String title, String address, double price, int squareMeters, String description,
+                        IsFurnished isFurnished, int numberOfRooms, int floorNumber, Date availableFrom, AdType adType,
+                        ApartmentType apartmentType, String district, Double latitude, Double longitude,
+                        PropertyStatus status, LocalDateTime createdAt, UUID ownerId, String ownerName, String ownerSurname,
+                        String ownerEmail, String ownerPhoneNumber) {
+        this(id, title, address, price, squareMeters, description, isFurnished, numberOfRooms, floorNumber, availableFrom,
+                adType, apartmentType, district, latitude, longitude, status, createdAt, ownerId, ownerName, ownerSurname,
+                ownerEmail, ownerPhoneNumber, null);
+    }
+}
@@ -0,0 +1,19 @@
+package com.house.hunter.model.dto.search;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SavedSearchDTO {
+    private UUID id;
+    private String name;
+    private PropertySearchCriteriaDTO criteria;
+    private LocalDateTime createdAt;
+}
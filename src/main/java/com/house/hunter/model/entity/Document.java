@@ -9,6 +9,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToOne;
@@ -29,6 +30,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_document_content_hash", columnList = "content_hash"))
 public class Document {
     @Id
     @GeneratedValue(generator = "UUID")
@@ -39,6 +41,10 @@ public class Document {
     @NotEmpty(message = "File name is required")
     private String filename;
 
+    // SHA-256 of the file content in hex, used to reject uploads of a document already on file
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "document_type")
     @Enumerated(EnumType.STRING)
     private DocumentType documentType;
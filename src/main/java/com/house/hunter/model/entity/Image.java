@@ -6,11 +6,15 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
 import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import com.house.hunter.constant.RenditionStatus;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -29,7 +33,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = @Index(name = "idx_images_content_hash", columnList = "content_hash"))
 public class Image {
 
     @Id
@@ -41,6 +45,10 @@ public class Image {
     @NotEmpty(message = "File name is required")
     private String filename;
 
+    // SHA-256 of the file content in hex, images with the same hash share the file
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
     private LocalDateTime createdAt;
@@ -49,4 +57,14 @@ public class Image {
     @JsonIgnoreProperties({"images"})
     @JoinColumn(name = "property_id", nullable = false)
     private Property property;
+
+    // Renditions are rendered per file and named after it, so the rows sharing a file share these values
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rendition_status")
+    private RenditionStatus renditionStatus;
+
+    // Dimensions of the original, the rendition dimensions follow from them
+    private Integer width;
+
+    private Integer height;
 }
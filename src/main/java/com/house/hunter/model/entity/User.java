@@ -82,6 +82,10 @@ public class User {
     @Column(name = "reset_password_token")
     private String resetPasswordToken;
 
+    // Access tokens issued under an older epoch are revoked, null for accounts that never revoked their tokens
+    @Column(name = "token_epoch")
+    private Long tokenEpoch;
+
     @OneToMany(mappedBy = "owner", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"owner"})
     private List<Property> properties = new ArrayList<>();
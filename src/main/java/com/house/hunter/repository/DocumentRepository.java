@@ -4,12 +4,22 @@ import com.house.hunter.constant.DocumentType;
 import com.house.hunter.model.entity.Document;
 import com.house.hunter.model.entity.Property;
 import com.house.hunter.model.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface DocumentRepository extends JpaRepository<Document, UUID> {
@@ -23,5 +33,22 @@ public interface DocumentRepository extends JpaRepository<Document, UUID> {
 
     Optional<Document> findByPropertyAndDocumentType(Property property, DocumentType documentType);
 
+    Optional<Document> findFirstByContentHash(String contentHash);
+
+    // Rows stored before the content hash was recorded, paged by id
+    List<Document> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Document d set d.contentHash = :contentHash where d.id = :id and d.contentHash is null")
+    int updateContentHash(@Param("id") UUID id, @Param("contentHash") String contentHash);
+
+    @Query("select distinct d.filename from Document d where d.filename in :filenames")
+    List<String> findFilenamesIn(@Param("filenames") Collection<String> filenames);
+
+    // Filenames in the order of the sharded storage layout, see StorageLayout
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select d.file_name from document d order by substr(encode(sha256(convert_to(d.file_name, 'UTF8')), 'hex'), 1, 4), d.file_name collate \"C\"", nativeQuery = true)
+    Stream<String> streamFilenamesInStorageOrder();
 
 }
@@ -1,13 +1,23 @@
 package com.house.hunter.repository;
 
+import com.house.hunter.constant.RenditionStatus;
 import com.house.hunter.model.entity.Image;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, UUID> {
@@ -15,5 +25,33 @@ public interface ImageRepository extends JpaRepository<Image, UUID> {
     Optional<Image> findImageByIdAndPropertyId(UUID id, UUID propertyId);
     void deleteByIdAndPropertyId(UUID id, UUID propertyId);
     void deleteByPropertyId(UUID propertyId);
+    List<Image> findByContentHashIn(Collection<String> contentHashes);
+    boolean existsByFilename(String filename);
+
+    // Rows stored before the content hash was recorded, paged by id
+    List<Image> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(UUID id, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Image i set i.contentHash = :contentHash where i.id = :id and i.contentHash is null")
+    int updateContentHash(@Param("id") UUID id, @Param("contentHash") String contentHash);
+
+    @Query("select distinct i.filename from Image i where i.filename in :filenames")
+    List<String> findFilenamesIn(@Param("filenames") Collection<String> filenames);
+
+    // Filenames in the order of the sharded storage layout, see StorageLayout
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select i.file_name from images i order by substr(encode(sha256(convert_to(i.file_name, 'UTF8')), 'hex'), 1, 4), i.file_name collate \"C\"", nativeQuery = true)
+    Stream<String> streamFilenamesInStorageOrder();
+
+    // Files whose renditions have not been rendered yet, rows from before the renditions have no status
+    @Query("select distinct i.filename from Image i where i.renditionStatus is null or i.renditionStatus = com.house.hunter.constant.RenditionStatus.PENDING order by i.filename")
+    List<String> findFilenamesPendingRendition(Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("update Image i set i.renditionStatus = :status, i.width = :width, i.height = :height where i.filename = :filename")
+    int updateRendition(@Param("filename") String filename, @Param("status") RenditionStatus status,
+                        @Param("width") Integer width, @Param("height") Integer height);
 }
 
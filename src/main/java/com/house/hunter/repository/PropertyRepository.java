@@ -2,18 +2,26 @@ package com.house.hunter.repository;
 
 import com.house.hunter.constant.AdType;
 import com.house.hunter.constant.PropertyStatus;
+import com.house.hunter.model.dto.search.PropertyView;
 import com.house.hunter.model.entity.Property;
+import com.house.hunter.search.PropertyRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property> {
+public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSpecificationExecutor<Property>, PropertyRepositoryCustom {
+    String PROPERTY_VIEW = "select new com.house.hunter.model.dto.search.PropertyView(p.id, p.title, p.address, p.price, " +
+            "p.squareMeters, p.description, p.isFurnished, p.numberOfRooms, p.floorNumber, p.availableFrom, p.adType, " +
+            "p.apartmentType, p.district, p.latitude, p.longitude, p.status, p.createdAt, o.id, o.name, o.surname, o.email, o.phoneNumber";
 
     Optional<Void> deleteByOwnerEmailAndId(String email, UUID id);
 
@@ -32,4 +40,18 @@ public interface PropertyRepository extends JpaRepository<Property, UUID>, JpaSp
 
     long countByAdTypeAndStatus(AdType adType, PropertyStatus status);
 
+    @Query("select new com.house.hunter.search.PropertyRow(p.id, p.title, p.description, p.address, p.district, p.price, p.squareMeters, p.numberOfRooms, p.floorNumber, " +
+            "p.availableFrom, p.adType, p.apartmentType, p.isFurnished, p.createdAt, p.latitude, p.longitude) from Property p where p.status = :status")
+    List<PropertyRow> findRowsByStatus(@Param("status") PropertyStatus status);
+
+    @Query(PROPERTY_VIEW + ") from Property p join p.owner o where p.id in :ids")
+    List<PropertyView> findViewsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query(PROPERTY_VIEW + ") from Property p join p.owner o where p.id = :id")
+    Optional<PropertyView> findViewById(@Param("id") UUID id);
+
+    @Query(PROPERTY_VIEW + ", d.filename) from Property p join p.owner o left join p.document d " +
+            "where o.email = :email and p.status = :status")
+    List<PropertyView> findViewsByOwnerEmailAndStatus(@Param("email") String email, @Param("status") PropertyStatus status);
+
 }
@@ -0,0 +1,23 @@
+package com.house.hunter.repository;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.PropertyPinDTO;
+import com.house.hunter.model.dto.search.PropertyView;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.search.FacetCounter;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface PropertyRepositoryCustom {
+    FacetCounter countFacets(PropertySearchCriteriaDTO criteria);
+
+    Page<PropertyView> findViews(Specification<Property> specification, Pageable pageable);
+
+    List<PropertyView> findViews(Specification<Property> specification, Sort sort, int limit);
+
+    List<PropertyPinDTO> findPins(Specification<Property> specification, int limit);
+}
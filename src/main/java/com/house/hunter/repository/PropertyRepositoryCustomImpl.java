@@ -0,0 +1,162 @@
+package com.house.hunter.repository;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.PropertyPinDTO;
+import com.house.hunter.model.dto.search.PropertyView;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.model.entity.User;
+import com.house.hunter.search.FacetCounter;
+import com.house.hunter.search.PropertyFilter;
+import com.house.hunter.util.PropertySpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+public class PropertyRepositoryCustomImpl implements PropertyRepositoryCustom {
+    private final EntityManager entityManager;
+
+    public PropertyRepositoryCustomImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Page<PropertyView> findViews(Specification<Property> specification, Pageable pageable) {
+        TypedQuery<PropertyView> query = viewQuery(specification, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        // The count query is skipped when the page itself tells the total
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(specification));
+    }
+
+    @Override
+    public List<PropertyView> findViews(Specification<Property> specification, Sort sort, int limit) {
+        return viewQuery(specification, sort).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public List<PropertyPinDTO> findPins(Specification<Property> specification, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropertyPinDTO> query = criteriaBuilder.createQuery(PropertyPinDTO.class);
+        Root<Property> root = query.from(Property.class);
+        query.select(criteriaBuilder.construct(PropertyPinDTO.class,
+                root.get("id"), root.get("latitude"), root.get("longitude"), root.get("price")));
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        query.where(predicate != null
+                ? criteriaBuilder.and(predicate, criteriaBuilder.isNotNull(root.get("latitude")))
+                : criteriaBuilder.isNotNull(root.get("latitude")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    // One grouped query over the rows matching every non facet filter, the drill sideways counting happens per group
+    @Override
+    public FacetCounter countFacets(PropertySearchCriteriaDTO criteria) {
+        PropertySearchCriteriaDTO baseCriteria = new PropertySearchCriteriaDTO();
+        BeanUtils.copyProperties(criteria, baseCriteria);
+        baseCriteria.setAdType(null);
+        baseCriteria.setApartmentType(null);
+        baseCriteria.setIsFurnished(null);
+        baseCriteria.setMinRooms(null);
+        baseCriteria.setMaxRooms(null);
+        baseCriteria.setMinPrice(null);
+        baseCriteria.setMaxPrice(null);
+
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Property> root = query.from(Property.class);
+        // Prices are grouped by bucket and by whether they pass the price filter, not by their distinct values
+        Expression<Integer> priceBucket = priceBucket(criteriaBuilder, root.get("price"));
+        Expression<Integer> priceMatches = priceMatches(criteriaBuilder, root.get("price"), criteria);
+        query.multiselect(root.get("adType"), root.get("apartmentType"), root.get("isFurnished"),
+                root.get("numberOfRooms"), priceBucket, priceMatches, criteriaBuilder.count(root));
+        query.where(PropertySpecifications.createSpecification(baseCriteria).toPredicate(root, query, criteriaBuilder));
+        query.groupBy(root.get("adType"), root.get("apartmentType"), root.get("isFurnished"),
+                root.get("numberOfRooms"), priceBucket, priceMatches);
+
+        FacetCounter facets = new FacetCounter(PropertyFilter.of(criteria));
+        for (Tuple group : entityManager.createQuery(query).getResultList()) {
+            facets.add(group.get(0, AdType.class), group.get(1, ApartmentType.class), group.get(2, IsFurnished.class),
+                    group.get(3, Integer.class), group.get(4, Integer.class), group.get(5, Integer.class) == 1,
+                    group.get(6, Long.class));
+        }
+        return facets;
+    }
+
+    // Index of the FacetCounter price bucket. The bounds are literals, the expression is rendered the same way in the
+    // select and the group by clause.
+    private static Expression<Integer> priceBucket(CriteriaBuilder criteriaBuilder, Expression<Double> price) {
+        double[] bounds = FacetCounter.priceBounds();
+        CriteriaBuilder.Case<Integer> bucket = criteriaBuilder.selectCase();
+        for (int i = 0; i < bounds.length; i++) {
+            bucket = bucket.when(criteriaBuilder.lessThan(price, criteriaBuilder.literal(bounds[i])),
+                    criteriaBuilder.literal(i));
+        }
+        return bucket.otherwise(criteriaBuilder.literal(bounds.length));
+    }
+
+    private static Expression<Integer> priceMatches(CriteriaBuilder criteriaBuilder, Expression<Double> price,
+                                                    PropertySearchCriteriaDTO criteria) {
+        Predicate matches = criteriaBuilder.conjunction();
+        if (criteria.getMinPrice() != null) {
+            matches = criteriaBuilder.and(matches,
+                    criteriaBuilder.greaterThanOrEqualTo(price, criteriaBuilder.literal(criteria.getMinPrice())));
+        }
+        if (criteria.getMaxPrice() != null) {
+            matches = criteriaBuilder.and(matches,
+                    criteriaBuilder.lessThanOrEqualTo(price, criteriaBuilder.literal(criteria.getMaxPrice())));
+        }
+        return criteriaBuilder.<Integer>selectCase()
+                .when(matches, criteriaBuilder.literal(1))
+                .otherwise(criteriaBuilder.literal(0));
+    }
+
+    private TypedQuery<PropertyView> viewQuery(Specification<Property> specification, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PropertyView> query = criteriaBuilder.createQuery(PropertyView.class);
+        Root<Property> root = query.from(Property.class);
+        Join<Property, User> owner = root.join("owner");
+        query.select(criteriaBuilder.construct(PropertyView.class,
+                root.get("id"), root.get("title"), root.get("address"), root.get("price"), root.get("squareMeters"),
+                root.get("description"), root.get("isFurnished"), root.get("numberOfRooms"), root.get("floorNumber"),
+                root.get("availableFrom"), root.get("adType"), root.get("apartmentType"), root.get("district"),
+                root.get("latitude"), root.get("longitude"), root.get("status"), root.get("createdAt"), owner.get("id"), owner.get("name"), owner.get("surname"),
+                owner.get("email"), owner.get("phoneNumber")));
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Property> specification) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = criteriaBuilder.createQuery(Long.class);
+        Root<Property> root = query.from(Property.class);
+        query.select(criteriaBuilder.count(root));
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
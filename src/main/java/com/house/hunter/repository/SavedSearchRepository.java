@@ -0,0 +1,29 @@
+package com.house.hunter.repository;
+
+import com.house.hunter.model.entity.SavedSearch;
+import com.house.hunter.search.SavedSearchEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, UUID> {
+    List<SavedSearch> findByUserEmailOrderByCreatedAtDesc(String email);
+
+    long countByUserEmail(String email);
+
+    Optional<SavedSearch> findByIdAndUserEmail(UUID id, String email);
+
+    @Query("select new com.house.hunter.search.SavedSearchEntry(s.id, s.criteria) from SavedSearch s")
+    List<SavedSearchEntry> findEntries(Pageable pageable);
+
+    @Query("select s from SavedSearch s join fetch s.user where s.id in :ids")
+    List<SavedSearch> findWithUserByIdIn(@Param("ids") Collection<UUID> ids);
+}
@@ -5,8 +5,12 @@ import com.house.hunter.constant.UserRole;
 import com.house.hunter.model.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -23,4 +27,12 @@ public interface UserRepository extends CrudRepository<User, UUID> {
     Optional<List<User>> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate);
     Page findAll(Pageable pageable);
     long countByRole(UserRole role);
+
+    // Only the password column is written, a concurrent change of the account is not overwritten. Nothing is updated
+    // when the password was changed since oldPassword was read.
+    @Modifying
+    @Transactional
+    @Query("update User u set u.password = :newPassword where u.email = :email and u.password = :oldPassword")
+    int updatePassword(@Param("email") String email, @Param("oldPassword") String oldPassword,
+                       @Param("newPassword") String newPassword);
 }
@@ -0,0 +1,84 @@
+package com.house.hunter.scheduler;
+
+import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.repository.ImageRepository;
+import com.house.hunter.storage.BlobStore;
+import com.house.hunter.util.ImageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Deletes the blobs no image row references anymore, then compacts the segments in which deleted blobs take up at
+// least the configured share of the space
+@Component
+@ConditionalOnProperty(name = "image.blob-store.enabled", havingValue = "true")
+public class BlobCompactionJob {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobCompactionJob.class);
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private final BlobStore blobStore;
+    private final ImageRepository imageRepository;
+    private final ImageUtil imageUtil = ImageUtil.getInstance();
+    private final double minGarbageRatio;
+    // A blob is stored before its row is committed, recent blobs may still get their row. Shared with the orphan file
+    // collector, which has the same case for files.
+    private final long grace;
+
+    public BlobCompactionJob(BlobStore blobStore, ImageRepository imageRepository,
+                             @Value("${image.blob-store.compaction.min-garbage-ratio}") double minGarbageRatio,
+                             @Value("${orphan-files.grace}") long grace) {
+        this.blobStore = blobStore;
+        this.imageRepository = imageRepository;
+        this.minGarbageRatio = minGarbageRatio;
+        this.grace = grace;
+    }
+
+    @Scheduled(initialDelayString = "${image.blob-store.compaction.interval}",
+            fixedDelayString = "${image.blob-store.compaction.interval}")
+    public void compact() {
+        try {
+            int deleted = deleteUnreferenced();
+            long reclaimed = blobStore.compact(minGarbageRatio);
+            if (deleted > 0 || reclaimed > 0) {
+                LOGGER.info("Deleted {} unreferenced blobs, compaction reclaimed {} bytes", deleted, reclaimed);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to compact the blob store", e);
+        }
+    }
+
+    private int deleteUnreferenced() throws IOException {
+        long cutoff = System.currentTimeMillis() - grace;
+        List<String> names = blobStore.names().stream().filter(name -> storedBefore(name, cutoff)).sorted().toList();
+        int deleted = 0;
+        for (int from = 0; from < names.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = names.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, names.size()));
+            Set<String> referenced = new HashSet<>(imageRepository.findFilenamesIn(batch));
+            for (String name : batch) {
+                // The blob may have been stored again since it was listed, its new row may not be committed yet
+                if (!referenced.contains(name) && storedBefore(name, cutoff)) {
+                    try {
+                        imageUtil.deleteImage(name);
+                        deleted++;
+                    } catch (ImageNotFoundException e) {
+                        // Deleted meanwhile
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private boolean storedBefore(String name, long cutoff) {
+        BlobStore.Location location = blobStore.locate(name);
+        return location != null && location.storedAt() < cutoff;
+    }
+}
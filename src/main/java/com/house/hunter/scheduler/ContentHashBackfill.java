@@ -0,0 +1,136 @@
+package com.house.hunter.scheduler;
+
+import com.house.hunter.exception.DocumentNotFoundException;
+import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.model.entity.Document;
+import com.house.hunter.model.entity.Image;
+import com.house.hunter.repository.DocumentRepository;
+import com.house.hunter.repository.ImageRepository;
+import com.house.hunter.util.DocumentUtil;
+import com.house.hunter.util.ImageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+// Hashes the images and documents stored before their content hash was recorded, so that the duplicate lookups also
+// find them. Their files keep the old names. It runs on its own thread next to the traffic and the storage layout
+// migration: rows are read in pages by id, the files are hashed outside of any transaction and every page is written in
+// one short transaction. Rows whose file could not be hashed, for instance because the migration moved it during the
+// lookup, are retried on the next pass.
+@Component
+public class ContentHashBackfill {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentHashBackfill.class);
+    // Lowest id in the order of the database, the first page starts after it
+    private static final UUID FIRST_ID = new UUID(0, 0);
+
+    private final ImageRepository imageRepository;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageUtil imageUtil = ImageUtil.getInstance();
+    private final DocumentUtil documentUtil = DocumentUtil.getInstance();
+    private final int batchSize;
+    private final int attempts;
+    private final long retryDelay;
+
+    public ContentHashBackfill(ImageRepository imageRepository, DocumentRepository documentRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${content-hash.backfill.batch-size}") int batchSize,
+                               @Value("${content-hash.backfill.attempts}") int attempts,
+                               @Value("${content-hash.backfill.retry-delay}") long retryDelay) {
+        this.imageRepository = imageRepository;
+        this.documentRepository = documentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.attempts = attempts;
+        this.retryDelay = retryDelay;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::backfill, "content-hash-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void backfill() {
+        try {
+            for (int attempt = 1; attempt <= attempts; attempt++) {
+                if (attempt > 1) {
+                    Thread.sleep(retryDelay);
+                }
+                int failed = pass("images", imageRepository::findByContentHashIsNullAndIdGreaterThanOrderByIdAsc,
+                        Image::getId, Image::getFilename, this::hashImage, imageRepository::updateContentHash)
+                        + pass("documents", documentRepository::findByContentHashIsNullAndIdGreaterThanOrderByIdAsc,
+                        Document::getId, Document::getFilename, this::hashDocument, documentRepository::updateContentHash);
+                if (failed == 0) {
+                    return;
+                }
+            }
+            LOGGER.warn("Some files are still stored without a content hash, they are hashed again on the next start");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.error("Failed to backfill the content hashes, the remaining rows are hashed on the next start", e);
+        }
+    }
+
+    // Returns the number of rows that could not be hashed
+    private <T> int pass(String store, BiFunction<UUID, Pageable, List<T>> findPage, Function<T, UUID> id,
+                         Function<T, String> filename, FileHasher hasher,
+                         BiConsumer<UUID, String> updateContentHash) {
+        int hashed = 0;
+        int failed = 0;
+        UUID after = FIRST_ID;
+        List<T> page;
+        do {
+            page = findPage.apply(after, PageRequest.of(0, batchSize));
+            Map<UUID, String> hashes = new LinkedHashMap<>();
+            for (T row : page) {
+                try {
+                    hashes.put(id.apply(row), hasher.hash(filename.apply(row)));
+                } catch (IOException | ImageNotFoundException | DocumentNotFoundException e) {
+                    LOGGER.warn("Could not hash {} file {}: {}", store, filename.apply(row), e.getMessage());
+                    failed++;
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> hashes.forEach(updateContentHash));
+            hashed += hashes.size();
+            if (!page.isEmpty()) {
+                after = id.apply(page.get(page.size() - 1));
+            }
+        } while (page.size() == batchSize);
+        if (hashed > 0 || failed > 0) {
+            LOGGER.info("Hashed {} {} stored without a content hash, {} failed", hashed, store, failed);
+        }
+        return failed;
+    }
+
+    private String hashImage(String filename) throws IOException {
+        return imageUtil.hash(filename);
+    }
+
+    private String hashDocument(String filename) throws IOException {
+        return documentUtil.hash(filename);
+    }
+
+    @FunctionalInterface
+    private interface FileHasher {
+        String hash(String filename) throws IOException;
+    }
+}
@@ -1,6 +1,8 @@
 package com.house.hunter.scheduler;
 
 import com.house.hunter.constant.UserAccountStatus;
+import com.house.hunter.event.PropertyDeletionEvent;
+import com.house.hunter.event.UserAccountChangedEvent;
 import com.house.hunter.model.entity.Property;
 import com.house.hunter.model.entity.User;
 import com.house.hunter.repository.ConfirmationTokenRepository;
@@ -11,6 +13,7 @@ import com.house.hunter.repository.UserRepository;
 import com.house.hunter.service.EmailService;
 import com.house.hunter.util.MailUtil;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.MimeMessagePreparator;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -30,6 +33,7 @@ public class DataRetentionScheduler {
     private final PropertyRepository propertyRepository;
     private final ConfirmationTokenRepository confirmationTokenRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Value("${data.retention.period}")
     private int retentionPeriod;
@@ -43,6 +47,7 @@ public class DataRetentionScheduler {
                                   PropertyRepository propertyRepository,
                                   ConfirmationTokenRepository confirmationTokenRepository,
                                   EmailService emailService,
+                                  ApplicationEventPublisher applicationEventPublisher,
                                   @Value("${data.retention.period}") int retentionPeriod,
                                   @Value("${data.retention.reminder.days}") int reminderDays) {
         this.userRepository = userRepository;
@@ -51,6 +56,7 @@ public class DataRetentionScheduler {
         this.propertyRepository = propertyRepository;
         this.confirmationTokenRepository = confirmationTokenRepository;
         this.emailService = emailService;
+        this.applicationEventPublisher = applicationEventPublisher;
         this.retentionPeriod = retentionPeriod;
         this.reminderDays = reminderDays;
     }
@@ -73,10 +79,12 @@ public class DataRetentionScheduler {
             for (Property property : properties) {
                 imageRepository.deleteByPropertyId(property.getId());
                 propertyRepository.delete(property);
+                applicationEventPublisher.publishEvent(new PropertyDeletionEvent(property));
             }
             confirmationTokenRepository.deleteByUserId(user.getId());
             // Delete the user
             userRepository.delete(user);
+            applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
         }
         // Send reminder emails
         for (User user : usersToRemind) {
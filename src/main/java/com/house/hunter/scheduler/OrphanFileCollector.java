@@ -0,0 +1,247 @@
+package com.house.hunter.scheduler;
+
+import com.house.hunter.exception.DocumentNotFoundException;
+import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.repository.DocumentRepository;
+import com.house.hunter.repository.ImageRepository;
+import com.house.hunter.util.DocumentUtil;
+import com.house.hunter.util.ImageUtil;
+import com.house.hunter.util.StorageLayout;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+// Deletes the image and document files no row references, such as the files of rows removed by the data retention or
+// by rejecting a property. The sharded files and the filenames of the table are both read in storage order and merge
+// joined, so memory stays bounded by a single shard directory. The orphans are written to a temporary file and deleted
+// afterwards in throttled batches, every batch is looked up again right before it is deleted. Files written during the
+// grace period are left alone, their rows may not be committed yet. Flat files are skipped until they are migrated.
+@Component
+public class OrphanFileCollector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrphanFileCollector.class);
+    private static final int SHARD_DIRECTORIES = 256;
+
+    private final ImageRepository imageRepository;
+    private final DocumentRepository documentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ImageUtil imageUtil = ImageUtil.getInstance();
+    private final DocumentUtil documentUtil = DocumentUtil.getInstance();
+    private final int batchSize;
+    private final long batchPause;
+    private final long grace;
+    private final MeterRegistry meterRegistry;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    // Share of the first level shard directories merged in the current scan
+    private volatile double progress;
+
+    public OrphanFileCollector(ImageRepository imageRepository, DocumentRepository documentRepository,
+                               PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                               @Value("${orphan-files.batch-size}") int batchSize,
+                               @Value("${orphan-files.batch-pause}") long batchPause,
+                               @Value("${orphan-files.grace}") long grace) {
+        this.imageRepository = imageRepository;
+        this.documentRepository = documentRepository;
+        // The table is streamed through a cursor, which needs a transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.grace = grace;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("orphan.files.running", running, flag -> flag.get() ? 1 : 0).register(meterRegistry);
+        Gauge.builder("orphan.files.scan.progress", this, collector -> collector.progress).register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${orphan-files.cron}")
+    public void collect() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            collect("images", imageUtil.getStorageDirectory(), imageRepository::streamFilenamesInStorageOrder,
+                    imageRepository::findFilenamesIn, this::deleteImage);
+            collect("documents", documentUtil.getStorageDirectory(), documentRepository::streamFilenamesInStorageOrder,
+                    documentRepository::findFilenamesIn, this::deleteDocument);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void collect(String store, Path root, Supplier<Stream<String>> referencedFilenames,
+                         Function<Collection<String>, List<String>> findReferenced, FileDeleter deleter) {
+        Counter scanned = meterRegistry.counter("orphan.files.scanned", "store", store);
+        Counter found = meterRegistry.counter("orphan.files.found", "store", store);
+        Counter deleted = meterRegistry.counter("orphan.files.deleted", "store", store);
+        Path orphans = null;
+        try {
+            orphans = Files.createTempFile("orphan-" + store, ".txt");
+            long cutoff = System.currentTimeMillis() - grace;
+            long orphanCount = scan(root, referencedFilenames, orphans, cutoff, scanned, found);
+            long deletedCount = delete(root, orphans, cutoff, findReferenced, deleter, deleted);
+            if (orphanCount > 0) {
+                LOGGER.info("Found {} orphaned {} files, deleted {}", orphanCount, store, deletedCount);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            LOGGER.error("Failed to collect the orphaned {} files", store, e);
+        } finally {
+            progress = 0;
+            if (orphans != null) {
+                try {
+                    Files.deleteIfExists(orphans);
+                } catch (IOException e) {
+                    LOGGER.warn("Could not delete {}", orphans, e);
+                }
+            }
+        }
+    }
+
+    // Merge join of the sharded files with the filenames of the table, both sorted by shard and name
+    private long scan(Path root, Supplier<Stream<String>> referencedFilenames, Path orphans, long cutoff,
+                      Counter scanned, Counter found) {
+        Long orphanCount = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<String> referenced = referencedFilenames.get();
+                 Stream<Path> files = StorageLayout.storageOrder(root);
+                 BufferedWriter writer = Files.newBufferedWriter(orphans, StandardCharsets.UTF_8)) {
+                Iterator<String> rows = referenced.iterator();
+                String row = null;
+                String rowShard = null;
+                for (Iterator<Path> fileIterator = files.iterator(); fileIterator.hasNext(); ) {
+                    Path file = fileIterator.next();
+                    String filename = file.getFileName().toString();
+                    String shard = file.getParent().getParent().getFileName().toString() + file.getParent().getFileName();
+                    progress = (double) Integer.parseInt(shard.substring(0, 2), 16) / SHARD_DIRECTORIES;
+                    scanned.increment();
+                    int comparison = -1;
+                    while (true) {
+                        if (row != null) {
+                            comparison = compare(rowShard, row, shard, filename);
+                            if (comparison >= 0) {
+                                break;
+                            }
+                        }
+                        if (!rows.hasNext()) {
+                            row = null;
+                            comparison = 1;
+                            break;
+                        }
+                        row = rows.next();
+                        rowShard = StorageLayout.shard(row);
+                    }
+                    if (comparison != 0 && modifiedBefore(file, cutoff)) {
+                        writer.write(filename);
+                        writer.newLine();
+                        found.increment();
+                        count++;
+                    }
+                }
+                progress = 1;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        return orphanCount == null ? 0 : orphanCount;
+    }
+
+    private static boolean untouchedSince(Path root, String filename, long cutoff) throws IOException {
+        Path file = StorageLayout.locate(root, filename);
+        return file != null && modifiedBefore(file, cutoff);
+    }
+
+    // False as well when the file has been deleted since it was listed
+    private static boolean modifiedBefore(Path file, long cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < cutoff;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    // A listed orphan may have been stored again since the scan, filenames are content addressed. Its row may not be
+    // committed yet, so the file itself is checked against the cutoff once more right before it is deleted.
+    private long delete(Path root, Path orphans, long cutoff, Function<Collection<String>, List<String>> findReferenced,
+                        FileDeleter deleter, Counter deleted) throws IOException, InterruptedException {
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(orphans, StandardCharsets.UTF_8)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            String filename;
+            do {
+                filename = reader.readLine();
+                if (filename != null) {
+                    batch.add(filename);
+                }
+                if (batch.size() == batchSize || (filename == null && !batch.isEmpty())) {
+                    // Rows may have been added for the content since the scan
+                    Set<String> referenced = new HashSet<>(findReferenced.apply(batch));
+                    for (String orphan : batch) {
+                        if (!referenced.contains(orphan) && untouchedSince(root, orphan, cutoff) && deleter.delete(orphan)) {
+                            deleted.increment();
+                            count++;
+                        }
+                    }
+                    batch.clear();
+                    Thread.sleep(batchPause);
+                }
+            } while (filename != null);
+        }
+        return count;
+    }
+
+    private boolean deleteImage(String filename) throws IOException {
+        try {
+            imageUtil.deleteImage(filename);
+            return true;
+        } catch (ImageNotFoundException e) {
+            return false;
+        }
+    }
+
+    private boolean deleteDocument(String filename) throws IOException {
+        try {
+            documentUtil.deleteDocument(filename);
+            return true;
+        } catch (DocumentNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static int compare(String firstShard, String first, String secondShard, String second) {
+        int comparison = firstShard.compareTo(secondShard);
+        return comparison != 0 ? comparison : StorageLayout.NAME_ORDER.compare(first, second);
+    }
+
+    @FunctionalInterface
+    private interface FileDeleter {
+        boolean delete(String filename) throws IOException;
+    }
+}
@@ -0,0 +1,38 @@
+package com.house.hunter.scheduler;
+
+import com.house.hunter.util.DocumentUtil;
+import com.house.hunter.util.ImageUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+// Moves the images and documents written before the sharded layout into their shards. It runs next to the traffic on
+// its own thread, lookups find a file under its flat path until it is moved and the stored filenames do not change.
+@Component
+public class StorageLayoutMigrator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageLayoutMigrator.class);
+
+    private final ImageUtil imageUtil = ImageUtil.getInstance();
+    private final DocumentUtil documentUtil = DocumentUtil.getInstance();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::migrate, "storage-layout-migrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrate() {
+        try {
+            int images = imageUtil.migrateLayout();
+            int documents = documentUtil.migrateLayout();
+            if (images > 0 || documents > 0) {
+                LOGGER.info("Moved {} image and {} document files into the sharded storage layout", images, documents);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to migrate the storage layout, the remaining flat files are moved on the next start", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.house.hunter.search;
+
+import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyFacetsDTO;
+
+import java.util.List;
+
+// Cached search response, facets are null when they were not requested
+public record CachedSearchPage(List<PropertyDTO> content, long total, PropertyFacetsDTO facets) {
+}
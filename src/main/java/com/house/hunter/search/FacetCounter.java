@@ -0,0 +1,106 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.search.PropertyFacetsDTO;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Drill sideways facet counts: every facet is counted as if its own filter was not set, the other filters still apply.
+// A property failing no facet filter counts everywhere, one failing exactly one facet filter counts only for that facet.
+public final class FacetCounter {
+    // Upper bounds (exclusive) of the price buckets, wide enough for rentals and sales
+    private static final double[] PRICE_BOUNDS = {10_000, 20_000, 30_000, 50_000, 1_000_000, 3_000_000, 5_000_000, 10_000_000};
+    private static final AdType[] AD_TYPES = AdType.values();
+    private static final ApartmentType[] APARTMENT_TYPES = ApartmentType.values();
+    private static final IsFurnished[] FURNISHING = IsFurnished.values();
+
+    private final PropertyFilter filter;
+    private final long[] adTypes = new long[AD_TYPES.length];
+    private final long[] apartmentTypes = new long[APARTMENT_TYPES.length];
+    private final long[] furnishing = new long[FURNISHING.length];
+    private final Map<Integer, Long> rooms = new TreeMap<>();
+    private final long[] prices = new long[PRICE_BOUNDS.length + 1];
+
+    public FacetCounter(PropertyFilter filter) {
+        this.filter = filter;
+    }
+
+    // Upper bounds (exclusive) of the price buckets, the database groups the prices with the same bounds
+    public static double[] priceBounds() {
+        return PRICE_BOUNDS.clone();
+    }
+
+    // Properties grouped by price bucket, priceMatches tells whether their prices pass the price filter
+    public void add(AdType adType, ApartmentType apartmentType, IsFurnished isFurnished, int numberOfRooms,
+                    int priceBucket, boolean priceMatches, long count) {
+        add(adType == null ? -1 : adType.ordinal(),
+                apartmentType == null ? -1 : apartmentType.ordinal(),
+                isFurnished == null ? -1 : isFurnished.ordinal(),
+                numberOfRooms, priceBucket, priceMatches, count);
+    }
+
+    // Enum values are passed as ordinals, -1 when the property has no value
+    void add(int adType, int apartmentType, int isFurnished, int numberOfRooms, double price, long count) {
+        add(adType, apartmentType, isFurnished, numberOfRooms, priceBucket(price), filter.acceptsPrice(price), count);
+    }
+
+    private void add(int adType, int apartmentType, int isFurnished, int numberOfRooms, int priceBucket,
+                     boolean priceMatches, long count) {
+        boolean adTypeMatches = filter.acceptsAdType(adType);
+        boolean apartmentTypeMatches = filter.acceptsApartmentType(apartmentType);
+        boolean furnishingMatches = filter.acceptsFurnishing(isFurnished);
+        boolean roomsMatch = filter.acceptsRooms(numberOfRooms);
+        int failures = (adTypeMatches ? 0 : 1) + (apartmentTypeMatches ? 0 : 1) + (furnishingMatches ? 0 : 1)
+                + (roomsMatch ? 0 : 1) + (priceMatches ? 0 : 1);
+        if (failures > 1) {
+            return;
+        }
+        if (adType >= 0 && (failures == 0 || !adTypeMatches)) {
+            adTypes[adType] += count;
+        }
+        if (apartmentType >= 0 && (failures == 0 || !apartmentTypeMatches)) {
+            apartmentTypes[apartmentType] += count;
+        }
+        if (isFurnished >= 0 && (failures == 0 || !furnishingMatches)) {
+            furnishing[isFurnished] += count;
+        }
+        if (failures == 0 || !roomsMatch) {
+            rooms.merge(numberOfRooms, count, Long::sum);
+        }
+        if (failures == 0 || !priceMatches) {
+            prices[priceBucket] += count;
+        }
+    }
+
+    public PropertyFacetsDTO toDTO() {
+        Map<String, Long> priceCounts = new LinkedHashMap<>();
+        for (int i = 0; i < prices.length; i++) {
+            String label = i == PRICE_BOUNDS.length
+                    ? (long) PRICE_BOUNDS[i - 1] + "+"
+                    : (i == 0 ? 0 : (long) PRICE_BOUNDS[i - 1]) + "-" + (long) PRICE_BOUNDS[i];
+            priceCounts.put(label, prices[i]);
+        }
+        return new PropertyFacetsDTO(counts(AD_TYPES, adTypes), counts(APARTMENT_TYPES, apartmentTypes),
+                counts(FURNISHING, furnishing), new LinkedHashMap<>(rooms), priceCounts);
+    }
+
+    private static int priceBucket(double price) {
+        int bucket = 0;
+        while (bucket < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private static Map<String, Long> counts(Enum<?>[] values, long[] counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Enum<?> value : values) {
+            result.put(value.name(), counts[value.ordinal()]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+package com.house.hunter.search;
+
+import com.house.hunter.util.GeoFilter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+// Uniform latitude/longitude grid over the slots that have coordinates, every non empty cell keeps a posting list of
+// its slots. A viewport query visits the cells under its envelope, or the non empty cells when those are fewer.
+final class GeoGrid {
+    // About 1.1 km north-south, a city district viewport covers a few hundred cells
+    private static final double CELL_DEGREES = 0.01;
+    private static final long NO_CELL = Long.MIN_VALUE;
+
+    private final Map<Long, Postings> cells = new HashMap<>();
+    private long[] slotCells = new long[16];
+
+    GeoGrid() {
+        Arrays.fill(slotCells, NO_CELL);
+    }
+
+    void index(int slot, double latitude, double longitude) {
+        remove(slot);
+        if (Double.isNaN(latitude) || Double.isNaN(longitude)) {
+            return;
+        }
+        ensureCapacity(slot);
+        long cell = cell(row(latitude), column(longitude));
+        cells.computeIfAbsent(cell, key -> new Postings()).add(slot, 1);
+        slotCells[slot] = cell;
+    }
+
+    void remove(int slot) {
+        if (slot >= slotCells.length || slotCells[slot] == NO_CELL) {
+            return;
+        }
+        Postings postings = cells.get(slotCells[slot]);
+        postings.remove(slot);
+        if (postings.size() == 0) {
+            cells.remove(slotCells[slot]);
+        }
+        slotCells[slot] = NO_CELL;
+    }
+
+    // Slots in the cells overlapping the envelope of the filter, a superset of the matches
+    BitSet candidates(GeoFilter geo) {
+        BitSet bits = new BitSet();
+        if (geo.getMinLatitude() > geo.getMaxLatitude() || geo.getMinLongitude() > geo.getMaxLongitude()) {
+            return bits;
+        }
+        int minRow = row(geo.getMinLatitude());
+        int maxRow = row(geo.getMaxLatitude());
+        int minColumn = column(geo.getMinLongitude());
+        int maxColumn = column(geo.getMaxLongitude());
+        long covered = (long) (maxRow - minRow + 1) * (maxColumn - minColumn + 1);
+        if (covered > cells.size()) {
+            for (Map.Entry<Long, Postings> entry : cells.entrySet()) {
+                int row = (int) (entry.getKey() >> 32);
+                int column = (int) entry.getKey().longValue();
+                if (row >= minRow && row <= maxRow && column >= minColumn && column <= maxColumn) {
+                    entry.getValue().addTo(bits);
+                }
+            }
+            return bits;
+        }
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                Postings postings = cells.get(cell(row, column));
+                if (postings != null) {
+                    postings.addTo(bits);
+                }
+            }
+        }
+        return bits;
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= slotCells.length) {
+            int oldLength = slotCells.length;
+            slotCells = Arrays.copyOf(slotCells, Math.max(slot + 1, oldLength * 2));
+            Arrays.fill(slotCells, oldLength, slotCells.length, NO_CELL);
+        }
+    }
+
+    private static int row(double latitude) {
+        return (int) Math.floor(latitude / CELL_DEGREES);
+    }
+
+    private static int column(double longitude) {
+        return (int) Math.floor(longitude / CELL_DEGREES);
+    }
+
+    private static long cell(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,118 @@
+package com.house.hunter.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Term dictionary of a single text field, posting lists reference the slots of PropertyColumns
+final class InvertedIndex {
+    private static final String[] NO_TERMS = new String[0];
+    // BM25 parameters
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    // Distinct terms of every slot, needed to take a document out of the posting lists again
+    private String[][] slotTerms = new String[16][];
+    private int[] lengths = new int[16];
+    private long totalLength;
+    private int documents;
+
+    void index(int slot, String text) {
+        remove(slot);
+        List<String> tokens = TextAnalyzer.tokenize(text);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+        ensureCapacity(slot);
+        frequencies.forEach((term, frequency) -> terms.computeIfAbsent(term, key -> new Postings()).add(slot, frequency));
+        slotTerms[slot] = frequencies.keySet().toArray(NO_TERMS);
+        lengths[slot] = tokens.size();
+        totalLength += tokens.size();
+        documents++;
+    }
+
+    void remove(int slot) {
+        if (slot >= slotTerms.length || slotTerms[slot] == null) {
+            return;
+        }
+        for (String term : slotTerms[slot]) {
+            Postings postings = terms.get(term);
+            postings.remove(slot);
+            if (postings.size() == 0) {
+                terms.remove(term);
+            }
+        }
+        slotTerms[slot] = null;
+        totalLength -= lengths[slot];
+        lengths[slot] = 0;
+        documents--;
+    }
+
+    // Slots containing a term that starts with the given token
+    BitSet matchPrefix(String token) {
+        BitSet bits = new BitSet();
+        for (Postings postings : withPrefix(token).values()) {
+            postings.addTo(bits);
+        }
+        return bits;
+    }
+
+    // Slots where every token prefixes some term of the field
+    BitSet matchAll(List<String> tokens) {
+        BitSet result = null;
+        for (String token : tokens) {
+            BitSet bits = matchPrefix(token);
+            if (result == null) {
+                result = bits;
+            } else {
+                result.and(bits);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result != null ? result : new BitSet();
+    }
+
+    // Adds the BM25 contribution of the token to the scores of the candidate slots
+    void score(String token, float weight, BitSet candidates, float[] scores) {
+        if (documents == 0) {
+            return;
+        }
+        float averageLength = (float) totalLength / documents;
+        for (Map.Entry<String, Postings> entry : withPrefix(token).entrySet()) {
+            Postings postings = entry.getValue();
+            double idf = Math.log(1 + (documents - postings.size() + 0.5) / (postings.size() + 0.5));
+            // Completed prefixes count less than the exact word the user typed
+            float termWeight = entry.getKey().length() == token.length() ? weight : weight * 0.5f;
+            for (int i = 0; i < postings.size(); i++) {
+                int slot = postings.slot(i);
+                if (!candidates.get(slot)) {
+                    continue;
+                }
+                float frequency = postings.frequency(i);
+                float norm = K1 * (1 - B + B * lengths[slot] / averageLength);
+                scores[slot] += (float) (termWeight * idf * frequency * (K1 + 1) / (frequency + norm));
+            }
+        }
+    }
+
+    private NavigableMap<String, Postings> withPrefix(String token) {
+        return terms.subMap(token, true, token + Character.MAX_VALUE, false);
+    }
+
+    private void ensureCapacity(int slot) {
+        if (slot >= slotTerms.length) {
+            int capacity = Math.max(slot + 1, slotTerms.length * 2);
+            slotTerms = Arrays.copyOf(slotTerms, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+}
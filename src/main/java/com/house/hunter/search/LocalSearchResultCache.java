@@ -0,0 +1,104 @@
+package com.house.hunter.search;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-process search cache, entries are grouped by criteria so an invalidation evicts every page of a search at once
+@Component
+@ConditionalOnProperty(name = "search.cache.type", havingValue = "local")
+public class LocalSearchResultCache implements SearchResultCache {
+    private final Map<String, CriteriaEntry> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    // Pages of all criteria together, a search paged deeply counts every page it keeps
+    private final int maxEntries;
+    // Only changed while holding the lock
+    private int pageCount;
+    private volatile long generation;
+
+    public LocalSearchResultCache(@Value("${search.cache.ttl}") long ttlMillis,
+                                  @Value("${search.cache.max-entries}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public long generation() {
+        return generation;
+    }
+
+    @Override
+    public CachedSearchPage get(SearchCacheKey key) {
+        CriteriaEntry entry = entries.get(key.criteria());
+        if (entry == null) {
+            return null;
+        }
+        TimedPage timed = entry.pages().get(key.page());
+        if (timed == null || timed.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return timed.page();
+    }
+
+    // Synchronized with evictMatching so a stale result can not slip in between the generation check and the store
+    @Override
+    public synchronized void put(SearchCacheKey key, PropertySearchCriteriaDTO criteria, CachedSearchPage page, long generation) {
+        if (generation != this.generation) {
+            return;
+        }
+        CriteriaEntry existing = entries.get(key.criteria());
+        if ((existing == null || !existing.pages().containsKey(key.page())) && pageCount >= maxEntries) {
+            removeExpired(System.currentTimeMillis());
+            if (pageCount >= maxEntries) {
+                return;
+            }
+        }
+        TimedPage previous = entries.computeIfAbsent(key.criteria(), criteriaKey -> new CriteriaEntry(PropertyFilter.of(criteria), new ConcurrentHashMap<>()))
+                .pages().put(key.page(), new TimedPage(page, System.currentTimeMillis() + ttlMillis));
+        if (previous == null) {
+            pageCount++;
+        }
+    }
+
+    @Override
+    public synchronized void evictMatching(PropertyRow row) {
+        generation++;
+        Iterator<CriteriaEntry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            CriteriaEntry entry = iterator.next();
+            if (entry.filter().mayMatch(row)) {
+                pageCount -= entry.pages().size();
+                iterator.remove();
+            }
+        }
+    }
+
+    // Drops the expired pages, and the criteria left without a page
+    private void removeExpired(long now) {
+        Iterator<CriteriaEntry> entryIterator = entries.values().iterator();
+        while (entryIterator.hasNext()) {
+            CriteriaEntry entry = entryIterator.next();
+            Iterator<TimedPage> pageIterator = entry.pages().values().iterator();
+            while (pageIterator.hasNext()) {
+                if (pageIterator.next().expiresAt() < now) {
+                    pageIterator.remove();
+                    pageCount--;
+                }
+            }
+            if (entry.pages().isEmpty()) {
+                entryIterator.remove();
+            }
+        }
+    }
+
+    private record CriteriaEntry(PropertyFilter filter, Map<String, TimedPage> pages) {
+    }
+
+    private record TimedPage(CachedSearchPage page, long expiresAt) {
+    }
+}
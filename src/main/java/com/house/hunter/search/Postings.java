@@ -0,0 +1,57 @@
+package com.house.hunter.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Posting list of a single term: slots kept sorted in a primitive array with the term frequency alongside
+final class Postings {
+    private int[] slots = new int[4];
+    private int[] frequencies = new int[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    int slot(int index) {
+        return slots[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+
+    void add(int slot, int frequency) {
+        int index = Arrays.binarySearch(slots, 0, size, slot);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            return;
+        }
+        int insertAt = -index - 1;
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+        System.arraycopy(slots, insertAt, slots, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        slots[insertAt] = slot;
+        frequencies[insertAt] = frequency;
+        size++;
+    }
+
+    void remove(int slot) {
+        int index = Arrays.binarySearch(slots, 0, size, slot);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(slots, index + 1, slots, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        size--;
+    }
+
+    void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(slots[i]);
+        }
+    }
+}
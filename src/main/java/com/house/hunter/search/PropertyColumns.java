@@ -0,0 +1,348 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.search.PropertyPinDTO;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Column store of verified properties. Every property owns a slot that indexes all arrays, deleted slots are reused.
+// Not thread safe, PropertySearchIndex guards access with a read/write lock.
+final class PropertyColumns {
+    static final Set<String> SORTABLE_PROPERTIES =
+            Set.of("price", "squareMeters", "numberOfRooms", "floorNumber", "availableFrom", "createdAt");
+
+    private static final byte NO_VALUE = -1;
+    // Field weights for relevance ranking of the q parameter
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float DISTRICT_WEIGHT = 2.0f;
+    private static final float ADDRESS_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final BitSet[] adTypeBits = bitsets(AdType.values().length);
+    private final BitSet[] apartmentTypeBits = bitsets(ApartmentType.values().length);
+    private final BitSet[] furnishingBits = bitsets(IsFurnished.values().length);
+    private final InvertedIndex titleIndex = new InvertedIndex();
+    private final InvertedIndex descriptionIndex = new InvertedIndex();
+    private final InvertedIndex addressIndex = new InvertedIndex();
+    private final InvertedIndex districtIndex = new InvertedIndex();
+    private final GeoGrid geoGrid = new GeoGrid();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int size;
+
+    private UUID[] ids;
+    private double[] prices;
+    private int[] squareMeters;
+    private int[] rooms;
+    private int[] floors;
+    private long[] availableFrom;
+    private long[] createdAt;
+    private byte[] adTypes;
+    private byte[] apartmentTypes;
+    private byte[] furnishing;
+    // NaN when the property has no coordinates
+    private double[] latitudes;
+    private double[] longitudes;
+
+    PropertyColumns(int capacity) {
+        int initialCapacity = Math.max(capacity, 16);
+        ids = new UUID[initialCapacity];
+        prices = new double[initialCapacity];
+        squareMeters = new int[initialCapacity];
+        rooms = new int[initialCapacity];
+        floors = new int[initialCapacity];
+        availableFrom = new long[initialCapacity];
+        createdAt = new long[initialCapacity];
+        adTypes = new byte[initialCapacity];
+        apartmentTypes = new byte[initialCapacity];
+        furnishing = new byte[initialCapacity];
+        latitudes = new double[initialCapacity];
+        longitudes = new double[initialCapacity];
+    }
+
+    int count() {
+        return slots.size();
+    }
+
+    void upsert(PropertyRow row) {
+        Integer existing = slots.get(row.id());
+        int slot = existing != null ? existing : allocateSlot();
+        if (existing != null) {
+            clearEnumBits(slot);
+        } else {
+            slots.put(row.id(), slot);
+        }
+        ids[slot] = row.id();
+        prices[slot] = row.price();
+        squareMeters[slot] = row.squareMeters();
+        rooms[slot] = row.numberOfRooms();
+        floors[slot] = row.floorNumber();
+        availableFrom[slot] = toEpochDay(row.availableFrom());
+        createdAt[slot] = toEpochMilli(row.createdAt());
+        adTypes[slot] = setEnumBit(adTypeBits, row.adType(), slot);
+        apartmentTypes[slot] = setEnumBit(apartmentTypeBits, row.apartmentType(), slot);
+        furnishing[slot] = setEnumBit(furnishingBits, row.isFurnished(), slot);
+        titleIndex.index(slot, row.title());
+        descriptionIndex.index(slot, row.description());
+        addressIndex.index(slot, row.address());
+        districtIndex.index(slot, row.district());
+        latitudes[slot] = row.latitude() != null && row.longitude() != null ? row.latitude() : Double.NaN;
+        longitudes[slot] = row.latitude() != null && row.longitude() != null ? row.longitude() : Double.NaN;
+        geoGrid.index(slot, latitudes[slot], longitudes[slot]);
+        live.set(slot);
+    }
+
+    void remove(UUID id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        clearEnumBits(slot);
+        titleIndex.remove(slot);
+        descriptionIndex.remove(slot);
+        addressIndex.remove(slot);
+        districtIndex.remove(slot);
+        geoGrid.remove(slot);
+        live.clear(slot);
+        ids[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Returns the slots matching the filter in ascending slot order
+    int[] match(PropertyFilter filter) {
+        return match(filter, null);
+    }
+
+    // With a facet counter the facet filters (enums, rooms, price) are not used to narrow the candidates up front,
+    // so the same scan both collects the matches and feeds the drill sideways counts
+    int[] match(PropertyFilter filter, FacetCounter facets) {
+        BitSet candidates = (BitSet) live.clone();
+        if (filter.hasLocation()) {
+            candidates.and(geoGrid.candidates(filter.geo));
+        }
+        if (facets == null && filter.adTypes != null) {
+            candidates.and(union(adTypeBits, filter.adTypes));
+        }
+        if (facets == null && filter.apartmentTypes != null) {
+            candidates.and(union(apartmentTypeBits, filter.apartmentTypes));
+        }
+        if (facets == null && filter.furnishing != null) {
+            candidates.and(union(furnishingBits, filter.furnishing));
+        }
+        // Posting lists are intersected as bitsets, so text filters only narrow the candidates for the range checks
+        intersect(candidates, titleIndex, filter.titleTokens);
+        intersect(candidates, descriptionIndex, filter.descriptionTokens);
+        intersect(candidates, addressIndex, filter.addressTokens);
+        intersect(candidates, districtIndex, filter.districtTokens);
+        if (filter.queryTokens != null) {
+            for (String token : filter.queryTokens) {
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                BitSet any = titleIndex.matchPrefix(token);
+                any.or(descriptionIndex.matchPrefix(token));
+                any.or(addressIndex.matchPrefix(token));
+                any.or(districtIndex.matchPrefix(token));
+                candidates.and(any);
+            }
+        }
+        int[] matches = new int[candidates.cardinality()];
+        int count = 0;
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (!filter.acceptsSquareMeters(squareMeters[slot])
+                    || !filter.acceptsFloorNumber(floors[slot])
+                    || !filter.acceptsAvailableFrom(availableFrom[slot])
+                    || !filter.acceptsLocation(latitudes[slot], longitudes[slot])) {
+                continue;
+            }
+            if (facets != null) {
+                facets.add(adTypes[slot], apartmentTypes[slot], furnishing[slot], rooms[slot], prices[slot], 1);
+                if (!filter.acceptsAdType(adTypes[slot]) || !filter.acceptsApartmentType(apartmentTypes[slot])
+                        || !filter.acceptsFurnishing(furnishing[slot])) {
+                    continue;
+                }
+            }
+            if (filter.acceptsPrice(prices[slot]) && filter.acceptsRooms(rooms[slot])) {
+                matches[count++] = slot;
+            }
+        }
+        return count == matches.length ? matches : Arrays.copyOf(matches, count);
+    }
+
+    // Orders the matching slots and returns the ids of the requested window, an unsorted q search is ranked by relevance
+    List<UUID> page(int[] matches, PropertyFilter filter, Sort sort, long offset, int limit) {
+        if (offset >= matches.length || limit <= 0) {
+            return List.of();
+        }
+        int from = (int) offset;
+        int to = (int) Math.min(matches.length, offset + limit);
+        int[] ordered;
+        if (sort.isSorted()) {
+            ordered = SlotSorter.topK(matches, comparator(sort), to);
+        } else if (filter.queryTokens != null && !filter.queryTokens.isEmpty()) {
+            float[] scores = relevance(matches, filter.queryTokens);
+            SlotSorter.SlotComparator byScore = (a, b) -> Float.compare(scores[b], scores[a]);
+            ordered = SlotSorter.topK(matches, byScore.thenComparing(Integer::compare), to);
+        } else {
+            ordered = matches;
+        }
+        List<UUID> page = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            page.add(ids[ordered[i]]);
+        }
+        return page;
+    }
+
+    // Map pins of the first matches, straight from the columns so a viewport move does not touch the database
+    List<PropertyPinDTO> pins(int[] matches, int limit) {
+        List<PropertyPinDTO> pins = new ArrayList<>(Math.min(matches.length, limit));
+        for (int i = 0; i < matches.length && pins.size() < limit; i++) {
+            int slot = matches[i];
+            if (!Double.isNaN(latitudes[slot])) {
+                pins.add(new PropertyPinDTO(ids[slot], latitudes[slot], longitudes[slot], prices[slot]));
+            }
+        }
+        return pins;
+    }
+
+    private float[] relevance(int[] matches, List<String> tokens) {
+        BitSet candidates = new BitSet(size);
+        for (int slot : matches) {
+            candidates.set(slot);
+        }
+        float[] scores = new float[size];
+        for (String token : tokens) {
+            titleIndex.score(token, TITLE_WEIGHT, candidates, scores);
+            districtIndex.score(token, DISTRICT_WEIGHT, candidates, scores);
+            addressIndex.score(token, ADDRESS_WEIGHT, candidates, scores);
+            descriptionIndex.score(token, DESCRIPTION_WEIGHT, candidates, scores);
+        }
+        return scores;
+    }
+
+    private SlotSorter.SlotComparator comparator(Sort sort) {
+        SlotSorter.SlotComparator comparator = null;
+        for (Sort.Order order : sort) {
+            SlotSorter.SlotComparator next = comparator(order.getProperty());
+            if (order.isDescending()) {
+                SlotSorter.SlotComparator ascending = next;
+                next = (a, b) -> ascending.compare(b, a);
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator.thenComparing(Integer::compare);
+    }
+
+    private SlotSorter.SlotComparator comparator(String property) {
+        return switch (property) {
+            case "price" -> (a, b) -> Double.compare(prices[a], prices[b]);
+            case "squareMeters" -> (a, b) -> Integer.compare(squareMeters[a], squareMeters[b]);
+            case "numberOfRooms" -> (a, b) -> Integer.compare(rooms[a], rooms[b]);
+            case "floorNumber" -> (a, b) -> Integer.compare(floors[a], floors[b]);
+            case "availableFrom" -> (a, b) -> Long.compare(availableFrom[a], availableFrom[b]);
+            case "createdAt" -> (a, b) -> Long.compare(createdAt[a], createdAt[b]);
+            default -> throw new IllegalArgumentException("Unsupported sort property: " + property);
+        };
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (size == ids.length) {
+            grow(size * 2);
+        }
+        return size++;
+    }
+
+    private void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        squareMeters = Arrays.copyOf(squareMeters, capacity);
+        rooms = Arrays.copyOf(rooms, capacity);
+        floors = Arrays.copyOf(floors, capacity);
+        availableFrom = Arrays.copyOf(availableFrom, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        adTypes = Arrays.copyOf(adTypes, capacity);
+        apartmentTypes = Arrays.copyOf(apartmentTypes, capacity);
+        furnishing = Arrays.copyOf(furnishing, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+    }
+
+    private void clearEnumBits(int slot) {
+        clearEnumBit(adTypeBits, adTypes[slot], slot);
+        clearEnumBit(apartmentTypeBits, apartmentTypes[slot], slot);
+        clearEnumBit(furnishingBits, furnishing[slot], slot);
+    }
+
+    private static byte setEnumBit(BitSet[] bits, Enum<?> value, int slot) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        bits[value.ordinal()].set(slot);
+        return (byte) value.ordinal();
+    }
+
+    private static void clearEnumBit(BitSet[] bits, byte ordinal, int slot) {
+        if (ordinal != NO_VALUE) {
+            bits[ordinal].clear(slot);
+        }
+    }
+
+    private static void intersect(BitSet candidates, InvertedIndex index, List<String> tokens) {
+        if (tokens != null && !candidates.isEmpty()) {
+            candidates.and(index.matchAll(tokens));
+        }
+    }
+
+    private static BitSet union(BitSet[] bits, Set<? extends Enum<?>> values) {
+        BitSet union = new BitSet();
+        for (Enum<?> value : values) {
+            union.or(bits[value.ordinal()]);
+        }
+        return union;
+    }
+
+    private static BitSet[] bitsets(int count) {
+        BitSet[] bits = new BitSet[count];
+        for (int i = 0; i < count; i++) {
+            bits[i] = new BitSet();
+        }
+        return bits;
+    }
+
+    // A missing date never satisfies "available from" filters, the same way NULL fails the SQL comparison
+    static long toEpochDay(Date date) {
+        if (date == null) {
+            return Long.MAX_VALUE;
+        }
+        if (date instanceof java.sql.Date sqlDate) {
+            return sqlDate.toLocalDate().toEpochDay();
+        }
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime == null ? Long.MIN_VALUE : dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
@@ -0,0 +1,214 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.util.GeoFilter;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// Search criteria compiled into primitive bounds and enum sets, mirroring PropertySpecifications
+public final class PropertyFilter {
+    private static final AdType[] AD_TYPES = AdType.values();
+    private static final ApartmentType[] APARTMENT_TYPES = ApartmentType.values();
+    private static final IsFurnished[] FURNISHING = IsFurnished.values();
+
+    final double minPrice;
+    final double maxPrice;
+    final int squareMeters;
+    final int minFloorNumber;
+    final int maxFloorNumber;
+    final int minRooms;
+    final int maxRooms;
+    final long availableFromEpochDay;
+    // null means the dimension is not filtered
+    final Set<AdType> adTypes;
+    final Set<ApartmentType> apartmentTypes;
+    final Set<IsFurnished> furnishing;
+    // Analyzed search terms, null when the field is not searched
+    final List<String> titleTokens;
+    final List<String> descriptionTokens;
+    final List<String> addressTokens;
+    final List<String> districtTokens;
+    final List<String> queryTokens;
+    // null when there is no radius, bounding box or polygon
+    final GeoFilter geo;
+
+    private PropertyFilter(PropertySearchCriteriaDTO criteria) {
+        this.minPrice = criteria.getMinPrice() != null ? criteria.getMinPrice() : Double.NEGATIVE_INFINITY;
+        this.maxPrice = criteria.getMaxPrice() != null ? criteria.getMaxPrice() : Double.POSITIVE_INFINITY;
+        this.squareMeters = criteria.getSquareMeters();
+        this.minFloorNumber = criteria.getMinFloorNumber() != null ? criteria.getMinFloorNumber() : Integer.MIN_VALUE;
+        this.maxFloorNumber = criteria.getMaxFloorNumber() != null ? criteria.getMaxFloorNumber() : Integer.MAX_VALUE;
+        this.minRooms = criteria.getMinRooms() != null ? criteria.getMinRooms() : Integer.MIN_VALUE;
+        this.maxRooms = criteria.getMaxRooms() != null ? criteria.getMaxRooms() : Integer.MAX_VALUE;
+        this.availableFromEpochDay = criteria.getAvailableFrom() != null ? criteria.getAvailableFrom().toEpochDay() : Long.MAX_VALUE;
+        this.adTypes = parse(criteria.getAdType(), AdType.class, type -> AdType.valueOf(type.toUpperCase()));
+        this.apartmentTypes = parse(criteria.getApartmentType(), ApartmentType.class,
+                type -> ApartmentType.valueOf(type.replace(" ", "_").toUpperCase()));
+        this.furnishing = parse(criteria.getIsFurnished(), IsFurnished.class, type -> IsFurnished.valueOf(type.toUpperCase()));
+        this.titleTokens = tokens(criteria.getTitle());
+        this.descriptionTokens = tokens(criteria.getDescription());
+        this.addressTokens = tokens(criteria.getAddress());
+        this.districtTokens = tokens(criteria.getDistrict());
+        this.queryTokens = tokens(criteria.getQ());
+        this.geo = GeoFilter.of(criteria);
+    }
+
+    public static PropertyFilter of(PropertySearchCriteriaDTO criteria) {
+        return new PropertyFilter(criteria);
+    }
+
+    // Conservative single row check used for cache invalidation, it may report a match the search would not return
+    // (owner and creation date filters are not checked, text uses substring matching) but never misses one
+    public boolean mayMatch(PropertyRow row) {
+        if (!acceptsStructured(row)) {
+            return false;
+        }
+        String title = TextAnalyzer.fold(row.title());
+        String description = TextAnalyzer.fold(row.description());
+        String address = TextAnalyzer.fold(row.address());
+        String district = TextAnalyzer.fold(row.district());
+        if (!containsAll(title, titleTokens) || !containsAll(description, descriptionTokens)
+                || !containsAll(address, addressTokens) || !containsAll(district, districtTokens)) {
+            return false;
+        }
+        if (queryTokens != null) {
+            for (String token : queryTokens) {
+                if (!title.contains(token) && !description.contains(token) && !address.contains(token) && !district.contains(token)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Single row check with the semantics of the index, every search token has to prefix a term of its field.
+    // Owner and creation date filters are not checked.
+    public boolean matches(PropertyRow row) {
+        if (!acceptsStructured(row)) {
+            return false;
+        }
+        List<String> title = TextAnalyzer.tokenize(row.title());
+        List<String> description = TextAnalyzer.tokenize(row.description());
+        List<String> address = TextAnalyzer.tokenize(row.address());
+        List<String> district = TextAnalyzer.tokenize(row.district());
+        if (!prefixesAll(title, titleTokens) || !prefixesAll(description, descriptionTokens)
+                || !prefixesAll(address, addressTokens) || !prefixesAll(district, districtTokens)) {
+            return false;
+        }
+        if (queryTokens != null) {
+            for (String token : queryTokens) {
+                if (!prefixes(title, token) && !prefixes(description, token) && !prefixes(address, token) && !prefixes(district, token)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean acceptsStructured(PropertyRow row) {
+        if (!acceptsPrice(row.price()) || !acceptsSquareMeters(row.squareMeters()) || !acceptsFloorNumber(row.floorNumber())
+                || !acceptsRooms(row.numberOfRooms())) {
+            return false;
+        }
+        if (availableFromEpochDay != Long.MAX_VALUE && (row.availableFrom() == null
+                || PropertyColumns.toEpochDay(row.availableFrom()) > availableFromEpochDay)) {
+            return false;
+        }
+        if (!acceptsAdType(ordinal(row.adType())) || !acceptsApartmentType(ordinal(row.apartmentType()))
+                || !acceptsFurnishing(ordinal(row.isFurnished()))) {
+            return false;
+        }
+        return geo == null || row.latitude() != null && row.longitude() != null && geo.contains(row.latitude(), row.longitude());
+    }
+
+    // Enum checks take the ordinal, -1 when the property has no value
+    boolean acceptsAdType(int ordinal) {
+        return accepts(adTypes, AD_TYPES, ordinal);
+    }
+
+    boolean acceptsApartmentType(int ordinal) {
+        return accepts(apartmentTypes, APARTMENT_TYPES, ordinal);
+    }
+
+    boolean acceptsFurnishing(int ordinal) {
+        return accepts(furnishing, FURNISHING, ordinal);
+    }
+
+    boolean acceptsPrice(double price) {
+        return price >= minPrice && price <= maxPrice;
+    }
+
+    boolean acceptsSquareMeters(int value) {
+        return squareMeters <= 0 || value == squareMeters;
+    }
+
+    boolean acceptsFloorNumber(int floorNumber) {
+        return floorNumber >= minFloorNumber && floorNumber <= maxFloorNumber;
+    }
+
+    boolean acceptsRooms(int rooms) {
+        return rooms >= minRooms && rooms <= maxRooms;
+    }
+
+    boolean acceptsLocation(double latitude, double longitude) {
+        return geo == null || geo.contains(latitude, longitude);
+    }
+
+    boolean hasLocation() {
+        return geo != null;
+    }
+
+    boolean acceptsAvailableFrom(long epochDay) {
+        return availableFromEpochDay == Long.MAX_VALUE || epochDay <= availableFromEpochDay;
+    }
+
+    // A search text without any letter or digit cannot be answered from the term dictionary
+    static boolean isSearchable(String text) {
+        return text == null || text.isEmpty() || !TextAnalyzer.tokenize(text).isEmpty();
+    }
+
+    private static boolean containsAll(String text, List<String> tokens) {
+        return tokens == null || tokens.stream().allMatch(text::contains);
+    }
+
+    private static boolean prefixesAll(List<String> terms, List<String> tokens) {
+        return tokens == null || tokens.stream().allMatch(token -> prefixes(terms, token));
+    }
+
+    private static boolean prefixes(List<String> terms, String token) {
+        for (String term : terms) {
+            if (term.startsWith(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value == null ? -1 : value.ordinal();
+    }
+
+    private static <E extends Enum<E>> boolean accepts(Set<E> allowed, E[] values, int ordinal) {
+        return allowed == null || ordinal >= 0 && allowed.contains(values[ordinal]);
+    }
+
+    private static List<String> tokens(String text) {
+        return text == null || text.isEmpty() ? null : TextAnalyzer.tokenize(text);
+    }
+
+    private static <E extends Enum<E>> Set<E> parse(String[] values, Class<E> type, Function<String, E> parser) {
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        EnumSet<E> parsed = EnumSet.noneOf(type);
+        Arrays.stream(values).map(parser).forEach(parsed::add);
+        return parsed;
+    }
+}
@@ -0,0 +1,49 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.AdType;
+import com.house.hunter.constant.ApartmentType;
+import com.house.hunter.constant.IsFurnished;
+import com.house.hunter.model.entity.Property;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+// Snapshot of the searchable columns of a verified property
+public record PropertyRow(UUID id,
+                          String title,
+                          String description,
+                          String address,
+                          String district,
+                          double price,
+                          int squareMeters,
+                          int numberOfRooms,
+                          int floorNumber,
+                          Date availableFrom,
+                          AdType adType,
+                          ApartmentType apartmentType,
+                          IsFurnished isFurnished,
+                          LocalDateTime createdAt,
+                          Double latitude,
+                          Double longitude) {
+
+    public static PropertyRow of(Property property) {
+        return new PropertyRow(
+                property.getId(),
+                property.getTitle(),
+                property.getDescription(),
+                property.getAddress(),
+                property.getDistrict(),
+                property.getPrice(),
+                property.getSquareMeters(),
+                property.getNumberOfRooms(),
+                property.getFloorNumber(),
+                property.getAvailableFrom(),
+                property.getAdType(),
+                property.getApartmentType(),
+                property.getIsFurnished(),
+                property.getCreatedAt(),
+                property.getLatitude(),
+                property.getLongitude());
+    }
+}
@@ -0,0 +1,192 @@
+package com.house.hunter.search;
+
+import com.house.hunter.constant.PropertyStatus;
+import com.house.hunter.event.PropertyDeletionEvent;
+import com.house.hunter.event.PropertyRejectionEvent;
+import com.house.hunter.event.PropertyUpdateEvent;
+import com.house.hunter.event.PropertyVerificationEvent;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.PropertyPinsDTO;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.repository.PropertyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// In-process search engine over the verified properties, answers the structured filters without touching JDBC
+@Component
+public class PropertySearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertySearchIndex.class);
+
+    private final PropertyRepository propertyRepository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PropertyColumns columns = new PropertyColumns(0);
+    // Changes applied while a rebuild is loading rows, replayed on the rebuilt columns before they are swapped in
+    private List<Consumer<PropertyColumns>> pendingChanges;
+    private volatile boolean ready;
+
+    public PropertySearchIndex(PropertyRepository propertyRepository,
+                               @Value("${search.index.enabled}") boolean enabled) {
+        this.propertyRepository = propertyRepository;
+        this.enabled = enabled;
+    }
+
+    // Owner and creation date filters are still answered by the database
+    public boolean supports(PropertySearchCriteriaDTO criteria, Pageable pageable) {
+        if (!enabled || !ready) {
+            return false;
+        }
+        if (hasText(criteria.getOwnerEmail())) {
+            return false;
+        }
+        if (!PropertyFilter.isSearchable(criteria.getTitle()) || !PropertyFilter.isSearchable(criteria.getDescription())
+                || !PropertyFilter.isSearchable(criteria.getAddress()) || !PropertyFilter.isSearchable(criteria.getDistrict())
+                || !PropertyFilter.isSearchable(criteria.getQ())) {
+            return false;
+        }
+        if (criteria.getCreatedAt() != null && criteria.getCreatedAt().length > 0) {
+            return false;
+        }
+        return pageable.getSort().stream().allMatch(order -> PropertyColumns.SORTABLE_PROPERTIES.contains(order.getProperty()));
+    }
+
+    public PropertySearchResult search(PropertySearchCriteriaDTO criteria, Pageable pageable, boolean withFacets) {
+        PropertyFilter filter = PropertyFilter.of(criteria);
+        FacetCounter facets = withFacets ? new FacetCounter(filter) : null;
+        lock.readLock().lock();
+        try {
+            int[] matches = columns.match(filter, facets);
+            List<UUID> ids = pageable.isPaged()
+                    ? columns.page(matches, filter, pageable.getSort(), pageable.getOffset(), pageable.getPageSize())
+                    : columns.page(matches, filter, pageable.getSort(), 0, matches.length);
+            return new PropertySearchResult(ids, matches.length, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PropertyPinsDTO pins(PropertySearchCriteriaDTO criteria, int limit) {
+        PropertyFilter filter = PropertyFilter.of(criteria);
+        lock.readLock().lock();
+        try {
+            int[] matches = columns.match(filter);
+            return new PropertyPinsDTO(columns.pins(matches, limit), matches.length, matches.length > limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(PropertyRow row) {
+        apply(target -> target.upsert(row));
+    }
+
+    public void remove(UUID propertyId) {
+        apply(target -> target.remove(propertyId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Periodic full reload keeps nodes consistent with writes that were handled by another instance
+    @Scheduled(initialDelayString = "${search.index.rebuild.interval}", fixedDelayString = "${search.index.rebuild.interval}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<PropertyRow> rows = propertyRepository.findRowsByStatus(PropertyStatus.VERIFIED);
+            PropertyColumns rebuilt = new PropertyColumns(rows.size());
+            rows.forEach(rebuilt::upsert);
+            lock.writeLock().lock();
+            try {
+                pendingChanges.forEach(change -> change.accept(rebuilt));
+                columns = rebuilt;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            LOGGER.info("Property search index rebuilt with {} verified properties", rebuilt.count());
+        } catch (Exception e) {
+            LOGGER.error("Failed to rebuild the property search index", e);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Index listeners run before the search cache is invalidated, see SearchResultCacheInvalidator
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void handlePropertyVerificationEvent(PropertyVerificationEvent event) {
+        upsert(PropertyRow.of(event.getProperty()));
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void handlePropertyUpdateEvent(PropertyUpdateEvent event) {
+        Property property = event.getProperty();
+        if (property.getStatus() == PropertyStatus.VERIFIED) {
+            upsert(PropertyRow.of(property));
+        } else {
+            remove(property.getId());
+        }
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void handlePropertyRejectionEvent(PropertyRejectionEvent event) {
+        remove(event.getProperty().getId());
+    }
+
+    @TransactionalEventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void handlePropertyDeletionEvent(PropertyDeletionEvent event) {
+        remove(event.getProperty().getId());
+    }
+
+    private void apply(Consumer<PropertyColumns> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(columns);
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -0,0 +1,8 @@
+package com.house.hunter.search;
+
+import java.util.List;
+import java.util.UUID;
+
+// Facets are null when they were not requested
+public record PropertySearchResult(List<UUID> ids, long total, FacetCounter facets) {
+}
@@ -0,0 +1,108 @@
+package com.house.hunter.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+// Search cache shared by all instances. Entries are keyed by the generation they were computed in, every change bumps
+// the generation and so invalidates the whole cache at once, the old entries simply expire. The results are computed
+// from the search index of the node that cached them, so the nodes have to apply each other's property changes to their
+// index (search.index.enabled=false, or a rebuild interval no longer than the TTL), otherwise a node can cache a result
+// that is stale for the other nodes until it expires.
+@Component
+@ConditionalOnProperty(name = "search.cache.type", havingValue = "redis")
+public class RedisSearchResultCache implements SearchResultCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RedisSearchResultCache.class);
+    private static final String KEY_PREFIX = "search:cache:entry:";
+    private static final String GENERATION_KEY = "search:cache:generation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public RedisSearchResultCache(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                  @Value("${search.cache.ttl}") long ttlMillis) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    @Override
+    public long generation() {
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY);
+            return generation == null ? 0 : Long.parseLong(generation);
+        } catch (DataAccessException e) {
+            // Never equal to a stored generation, the result is then simply not cached
+            return -1;
+        }
+    }
+
+    @Override
+    public CachedSearchPage get(SearchCacheKey key) {
+        try {
+            long generation = generation();
+            if (generation < 0) {
+                return null;
+            }
+            Object json = redisTemplate.opsForHash().get(entryKey(generation, key), key.page());
+            return json == null ? null : objectMapper.readValue((String) json, CachedSearchPage.class);
+        } catch (JsonProcessingException | DataAccessException e) {
+            LOGGER.warn("Failed to read cached search {}", key, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(SearchCacheKey key, PropertySearchCriteriaDTO criteria, CachedSearchPage page, long generation) {
+        String entryKey = entryKey(generation, key);
+        try {
+            String pageJson = objectMapper.writeValueAsString(page);
+            // The transaction is discarded when an invalidation bumped the generation after it was read
+            redisTemplate.execute(new SessionCallback<List<Object>>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> redis = (RedisOperations<String, String>) operations;
+                    redis.watch(GENERATION_KEY);
+                    String current = redis.opsForValue().get(GENERATION_KEY);
+                    if (generation != (current == null ? 0 : Long.parseLong(current))) {
+                        redis.unwatch();
+                        return null;
+                    }
+                    redis.multi();
+                    redis.opsForHash().put(entryKey, key.page(), pageJson);
+                    redis.expire(entryKey, ttl);
+                    return redis.exec();
+                }
+            });
+        } catch (JsonProcessingException | DataAccessException e) {
+            LOGGER.warn("Failed to cache search {}", key, e);
+        }
+    }
+
+    @Override
+    public void evictMatching(PropertyRow row) {
+        try {
+            redisTemplate.opsForValue().increment(GENERATION_KEY);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Failed to invalidate the search cache, cached searches expire within {}", ttl, e);
+        }
+    }
+
+    private static String entryKey(long generation, SearchCacheKey key) {
+        return KEY_PREFIX + generation + ":" + key.criteria();
+    }
+}
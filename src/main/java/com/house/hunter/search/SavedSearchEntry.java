@@ -0,0 +1,7 @@
+package com.house.hunter.search;
+
+import java.util.UUID;
+
+// Saved search id with its criteria as stored JSON, loaded in batches when the percolator is rebuilt
+public record SavedSearchEntry(UUID id, String criteria) {
+}
@@ -0,0 +1,328 @@
+package com.house.hunter.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.repository.SavedSearchRepository;
+import com.house.hunter.util.GeoFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Reverse index of the saved searches. Every search is filed under the keys of its most selective filter (map cells,
+// a search token prefix or the enum combinations it accepts), a property only visits the buckets of the keys it
+// produces itself. The candidates are a superset of the matching searches and have to be checked with
+// PropertyFilter.matches, searches without any indexable filter are candidates for every property.
+@Component
+public class SavedSearchPercolator {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SavedSearchPercolator.class);
+    // About 11 km north-south, a search covering more cells than MAX_KEYS falls back to its other filters
+    private static final double CELL_DEGREES = 0.1;
+    private static final int MAX_KEYS = 16;
+    private static final int PREFIX_LENGTH = 3;
+    private static final String WILDCARD = "*";
+    private static final String MATCH_ALL = "all";
+    private static final int LOAD_BATCH_SIZE = 5000;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Postings> buckets = new HashMap<>();
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private UUID[] ids = new UUID[16];
+    private String[][] slotKeys = new String[16][];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int size;
+    // Ids saved or deleted while a rebuild is loading, the loaded snapshot is stale for them
+    private Set<UUID> changedDuringRebuild;
+
+    public SavedSearchPercolator(SavedSearchRepository savedSearchRepository, ObjectMapper objectMapper) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public synchronized void add(UUID id, PropertySearchCriteriaDTO criteria) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+        index(id, criteria);
+    }
+
+    public synchronized void remove(UUID id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+        unindex(id);
+    }
+
+    private void index(UUID id, PropertySearchCriteriaDTO criteria) {
+        unindex(id);
+        int slot = allocateSlot();
+        String[] keys = keys(PropertyFilter.of(criteria)).toArray(new String[0]);
+        for (String key : keys) {
+            buckets.computeIfAbsent(key, k -> new Postings()).add(slot, 1);
+        }
+        slots.put(id, slot);
+        ids[slot] = id;
+        slotKeys[slot] = keys;
+    }
+
+    private void unindex(UUID id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        for (String key : slotKeys[slot]) {
+            Postings postings = buckets.get(key);
+            postings.remove(slot);
+            if (postings.size() == 0) {
+                buckets.remove(key);
+            }
+        }
+        ids[slot] = null;
+        slotKeys[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    // Saved searches that may match the property
+    public synchronized List<UUID> candidates(PropertyRow row) {
+        BitSet matched = new BitSet();
+        for (String key : keys(row)) {
+            Postings postings = buckets.get(key);
+            if (postings != null) {
+                postings.addTo(matched);
+            }
+        }
+        List<UUID> candidates = new ArrayList<>(matched.cardinality());
+        for (int slot = matched.nextSetBit(0); slot >= 0; slot = matched.nextSetBit(slot + 1)) {
+            candidates.add(ids[slot]);
+        }
+        return candidates;
+    }
+
+    public synchronized int count() {
+        return slots.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        rebuild();
+    }
+
+    // Picks up searches saved or deleted through another instance
+    @Scheduled(initialDelayString = "${saved-search.percolator.rebuild.interval}",
+            fixedDelayString = "${saved-search.percolator.rebuild.interval}")
+    public void rebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        try {
+            Map<UUID, PropertySearchCriteriaDTO> loaded = new HashMap<>();
+            List<SavedSearchEntry> batch;
+            int page = 0;
+            do {
+                batch = savedSearchRepository.findEntries(PageRequest.of(page++, LOAD_BATCH_SIZE, Sort.by("id")));
+                for (SavedSearchEntry entry : batch) {
+                    loaded.put(entry.id(), readCriteria(entry.criteria()));
+                }
+            } while (batch.size() == LOAD_BATCH_SIZE);
+            synchronized (this) {
+                for (UUID id : new ArrayList<>(slots.keySet())) {
+                    if (!loaded.containsKey(id) && !changedDuringRebuild.contains(id)) {
+                        unindex(id);
+                    }
+                }
+                loaded.forEach((id, criteria) -> {
+                    if (!slots.containsKey(id) && !changedDuringRebuild.contains(id)) {
+                        index(id, criteria);
+                    }
+                });
+            }
+            LOGGER.info("Saved search percolator loaded {} saved searches", loaded.size());
+        } catch (Exception e) {
+            LOGGER.error("Failed to rebuild the saved search percolator", e);
+        } finally {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+        }
+    }
+
+    public PropertySearchCriteriaDTO readCriteria(String json) {
+        try {
+            return objectMapper.readValue(json, PropertySearchCriteriaDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable saved search criteria", e);
+        }
+    }
+
+    // Keys a search is filed under, taken from a single filter in the order map area, search text, enums
+    static Set<String> keys(PropertyFilter filter) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (filter.geo != null && addCellKeys(filter.geo, keys)) {
+            return keys;
+        }
+        String token = longest(filter.titleTokens, filter.descriptionTokens, filter.addressTokens, filter.districtTokens,
+                filter.queryTokens);
+        if (token != null) {
+            keys.add(textKey(fieldOf(filter, token), token));
+            return keys;
+        }
+        if (filter.adTypes != null || filter.apartmentTypes != null || filter.furnishing != null) {
+            List<String> adTypes = names(filter.adTypes);
+            List<String> apartmentTypes = names(filter.apartmentTypes);
+            List<String> furnishing = names(filter.furnishing);
+            if (adTypes.size() * apartmentTypes.size() * furnishing.size() <= MAX_KEYS) {
+                for (String adType : adTypes) {
+                    for (String apartmentType : apartmentTypes) {
+                        for (String furnished : furnishing) {
+                            keys.add(enumKey(adType, apartmentType, furnished));
+                        }
+                    }
+                }
+                return keys;
+            }
+        }
+        keys.add(MATCH_ALL);
+        return keys;
+    }
+
+    // Keys a property visits: its map cell, the prefixes of its terms and its enum values with wildcards
+    static Set<String> keys(PropertyRow row) {
+        Set<String> keys = new HashSet<>();
+        keys.add(MATCH_ALL);
+        if (row.latitude() != null && row.longitude() != null) {
+            keys.add(cellKey(cell(row.latitude()), cell(row.longitude())));
+        }
+        addTermKeys("title", row.title(), keys);
+        addTermKeys("description", row.description(), keys);
+        addTermKeys("address", row.address(), keys);
+        addTermKeys("district", row.district(), keys);
+        for (String adType : List.of(name(row.adType()), WILDCARD)) {
+            for (String apartmentType : List.of(name(row.apartmentType()), WILDCARD)) {
+                for (String furnished : List.of(name(row.isFurnished()), WILDCARD)) {
+                    keys.add(enumKey(adType, apartmentType, furnished));
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static boolean addCellKeys(GeoFilter geo, Set<String> keys) {
+        if (geo.getMinLatitude() > geo.getMaxLatitude() || geo.getMinLongitude() > geo.getMaxLongitude()) {
+            // Empty area, the search can never match
+            keys.add("none");
+            return true;
+        }
+        long rows = cell(geo.getMaxLatitude()) - cell(geo.getMinLatitude()) + 1;
+        long columns = cell(geo.getMaxLongitude()) - cell(geo.getMinLongitude()) + 1;
+        if (rows * columns > MAX_KEYS) {
+            return false;
+        }
+        for (int row = cell(geo.getMinLatitude()); row <= cell(geo.getMaxLatitude()); row++) {
+            for (int column = cell(geo.getMinLongitude()); column <= cell(geo.getMaxLongitude()); column++) {
+                keys.add(cellKey(row, column));
+            }
+        }
+        return true;
+    }
+
+    // A longer token is rarer, and so is its prefix bucket
+    @SafeVarargs
+    private static String longest(List<String>... tokenLists) {
+        String longest = null;
+        for (List<String> tokens : tokenLists) {
+            if (tokens != null) {
+                for (String token : tokens) {
+                    if (longest == null || token.length() > longest.length()) {
+                        longest = token;
+                    }
+                }
+            }
+        }
+        return longest;
+    }
+
+    // Field of the token for the key, the free text q matches any field
+    private static String fieldOf(PropertyFilter filter, String token) {
+        if (filter.titleTokens != null && filter.titleTokens.contains(token)) {
+            return "title";
+        }
+        if (filter.descriptionTokens != null && filter.descriptionTokens.contains(token)) {
+            return "description";
+        }
+        if (filter.addressTokens != null && filter.addressTokens.contains(token)) {
+            return "address";
+        }
+        if (filter.districtTokens != null && filter.districtTokens.contains(token)) {
+            return "district";
+        }
+        return "q";
+    }
+
+    // A search token matches the terms it prefixes, so a property term produces the keys of all its short prefixes
+    private static void addTermKeys(String field, String text, Set<String> keys) {
+        for (String term : TextAnalyzer.tokenize(text)) {
+            for (int length = 1; length <= Math.min(PREFIX_LENGTH, term.length()); length++) {
+                keys.add(field + ":" + term.substring(0, length));
+                keys.add("q:" + term.substring(0, length));
+            }
+        }
+    }
+
+    private static String textKey(String field, String token) {
+        return field + ":" + token.substring(0, Math.min(PREFIX_LENGTH, token.length()));
+    }
+
+    private static String enumKey(String adType, String apartmentType, String furnishing) {
+        return "enum:" + adType + "|" + apartmentType + "|" + furnishing;
+    }
+
+    private static String cellKey(int row, int column) {
+        return "cell:" + row + ":" + column;
+    }
+
+    private static int cell(double degrees) {
+        return (int) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static List<String> names(Collection<? extends Enum<?>> values) {
+        return values == null ? List.of(WILDCARD) : values.stream().map(Enum::name).toList();
+    }
+
+    private static String name(Enum<?> value) {
+        return value == null ? "-" : value.name();
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            slotKeys = Arrays.copyOf(slotKeys, size * 2);
+        }
+        return size++;
+    }
+}
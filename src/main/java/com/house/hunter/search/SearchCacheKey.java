@@ -0,0 +1,86 @@
+package com.house.hunter.search;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.function.UnaryOperator;
+
+// Canonical cache key of a search. The criteria part groups every page and variant of the same filters, so they are
+// invalidated together, the page part carries paging, sorting, facets and whether owner contacts are shown.
+public record SearchCacheKey(String criteria, String page) {
+
+    public static SearchCacheKey of(PropertySearchCriteriaDTO criteria, Pageable pageable, boolean facets, boolean includeOwner) {
+        return new SearchCacheKey(canonical(criteria), canonical(pageable, facets, includeOwner));
+    }
+
+    private static String canonical(PropertySearchCriteriaDTO criteria) {
+        StringJoiner key = new StringJoiner("&");
+        append(key, "q", text(criteria.getQ()));
+        append(key, "title", text(criteria.getTitle()));
+        append(key, "description", text(criteria.getDescription()));
+        append(key, "address", text(criteria.getAddress()));
+        append(key, "district", text(criteria.getDistrict()));
+        append(key, "ownerEmail", text(criteria.getOwnerEmail()));
+        append(key, "minPrice", criteria.getMinPrice());
+        append(key, "maxPrice", criteria.getMaxPrice());
+        append(key, "squareMeters", criteria.getSquareMeters() > 0 ? criteria.getSquareMeters() : null);
+        append(key, "minFloorNumber", criteria.getMinFloorNumber());
+        append(key, "maxFloorNumber", criteria.getMaxFloorNumber());
+        append(key, "minRooms", criteria.getMinRooms());
+        append(key, "maxRooms", criteria.getMaxRooms());
+        append(key, "availableFrom", criteria.getAvailableFrom());
+        append(key, "createdAt", values(criteria.getCreatedAt(), UnaryOperator.identity()));
+        append(key, "adType", values(criteria.getAdType(), UnaryOperator.identity()));
+        append(key, "apartmentType", values(criteria.getApartmentType(), type -> type.replace(" ", "_")));
+        append(key, "isFurnished", values(criteria.getIsFurnished(), UnaryOperator.identity()));
+        append(key, "latitude", criteria.getLatitude());
+        append(key, "longitude", criteria.getLongitude());
+        append(key, "radius", criteria.getRadius());
+        append(key, "minLatitude", criteria.getMinLatitude());
+        append(key, "maxLatitude", criteria.getMaxLatitude());
+        append(key, "minLongitude", criteria.getMinLongitude());
+        append(key, "maxLongitude", criteria.getMaxLongitude());
+        append(key, "polygon", text(criteria.getPolygon()));
+        return key.toString();
+    }
+
+    private static String canonical(Pageable pageable, boolean facets, boolean includeOwner) {
+        StringJoiner key = new StringJoiner("&");
+        if (pageable.isPaged()) {
+            key.add("page=" + pageable.getPageNumber()).add("size=" + pageable.getPageSize());
+        } else {
+            key.add("unpaged");
+        }
+        for (Sort.Order order : pageable.getSort()) {
+            key.add("sort=" + order.getProperty() + "," + order.getDirection().name());
+        }
+        key.add("facets=" + facets).add("owner=" + includeOwner);
+        return key.toString();
+    }
+
+    // Lowercased like the LIKE predicates and the analyzer compare them, not trimmed since LIKE would see the spaces
+    private static String text(String value) {
+        return value == null || value.isEmpty() ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String values(String[] values, UnaryOperator<String> normalizer) {
+        if (values == null || values.length == 0) {
+            return null;
+        }
+        return String.join(",", Arrays.stream(values)
+                .map(value -> normalizer.apply(value.toLowerCase(Locale.ROOT)))
+                .distinct()
+                .sorted()
+                .toList());
+    }
+
+    private static void append(StringJoiner key, String name, Object value) {
+        if (value != null) {
+            key.add(name + "=" + value);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.house.hunter.search;
+
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+
+// Search response cache, selected with search.cache.type (local or redis)
+public interface SearchResultCache {
+
+    // Read before computing a missed entry and handed back to put, so a result computed while an invalidation ran
+    // is not stored
+    long generation();
+
+    CachedSearchPage get(SearchCacheKey key);
+
+    void put(SearchCacheKey key, PropertySearchCriteriaDTO criteria, CachedSearchPage page, long generation);
+
+    // Evicts every cached search whose criteria the property matches, for the state before or after a change
+    void evictMatching(PropertyRow row);
+}
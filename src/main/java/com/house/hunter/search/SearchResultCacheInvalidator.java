@@ -0,0 +1,45 @@
+package com.house.hunter.search;
+
+import com.house.hunter.event.PropertyDeletionEvent;
+import com.house.hunter.event.PropertyRejectionEvent;
+import com.house.hunter.event.PropertyUpdateEvent;
+import com.house.hunter.event.PropertyVerificationEvent;
+import com.house.hunter.model.entity.Property;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Evicts the cached searches a changed property belongs to. Runs after the search index listeners, otherwise a search
+// could cache the old index state again right after the eviction.
+@Component
+public class SearchResultCacheInvalidator {
+    private final ObjectProvider<SearchResultCache> searchResultCache;
+
+    public SearchResultCacheInvalidator(ObjectProvider<SearchResultCache> searchResultCache) {
+        this.searchResultCache = searchResultCache;
+    }
+
+    @TransactionalEventListener
+    public void handlePropertyVerificationEvent(PropertyVerificationEvent event) {
+        evict(event.getProperty());
+    }
+
+    @TransactionalEventListener
+    public void handlePropertyUpdateEvent(PropertyUpdateEvent event) {
+        evict(event.getProperty());
+    }
+
+    @TransactionalEventListener
+    public void handlePropertyRejectionEvent(PropertyRejectionEvent event) {
+        evict(event.getProperty());
+    }
+
+    @TransactionalEventListener
+    public void handlePropertyDeletionEvent(PropertyDeletionEvent event) {
+        evict(event.getProperty());
+    }
+
+    private void evict(Property property) {
+        searchResultCache.ifAvailable(cache -> cache.evictMatching(PropertyRow.of(property)));
+    }
+}
@@ -0,0 +1,67 @@
+package com.house.hunter.search;
+
+import java.util.Arrays;
+
+// Partial sort over primitive slot arrays, avoids boxing every candidate just to order a single page
+final class SlotSorter {
+
+    @FunctionalInterface
+    interface SlotComparator {
+        int compare(int a, int b);
+
+        default SlotComparator thenComparing(SlotComparator other) {
+            return (a, b) -> {
+                int result = compare(a, b);
+                return result != 0 ? result : other.compare(a, b);
+            };
+        }
+    }
+
+    private SlotSorter() {
+    }
+
+    // Returns the k smallest slots in order, keeping them in a bounded max-heap while scanning
+    static int[] topK(int[] slots, SlotComparator comparator, int k) {
+        int limit = Math.min(k, slots.length);
+        if (limit == 0) {
+            return new int[0];
+        }
+        int[] heap = Arrays.copyOf(slots, limit);
+        for (int i = limit / 2 - 1; i >= 0; i--) {
+            siftDown(heap, i, limit, comparator);
+        }
+        for (int i = limit; i < slots.length; i++) {
+            if (comparator.compare(slots[i], heap[0]) < 0) {
+                heap[0] = slots[i];
+                siftDown(heap, 0, limit, comparator);
+            }
+        }
+        // Heap sort in place, repeatedly moving the largest remaining slot to the end
+        for (int end = limit - 1; end > 0; end--) {
+            int largest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = largest;
+            siftDown(heap, 0, end, comparator);
+        }
+        return heap;
+    }
+
+    private static void siftDown(int[] heap, int index, int size, SlotComparator comparator) {
+        int current = index;
+        while (true) {
+            int left = 2 * current + 1;
+            if (left >= size) {
+                return;
+            }
+            int right = left + 1;
+            int largest = right < size && comparator.compare(heap[right], heap[left]) > 0 ? right : left;
+            if (comparator.compare(heap[largest], heap[current]) <= 0) {
+                return;
+            }
+            int swap = heap[current];
+            heap[current] = heap[largest];
+            heap[largest] = swap;
+            current = largest;
+        }
+    }
+}
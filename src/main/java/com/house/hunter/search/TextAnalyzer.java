@@ -0,0 +1,93 @@
+package com.house.hunter.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Czech aware tokenizer: lowercases with the Czech locale and folds diacritics, so spellings with and without hacek or carka match.
+// Folding is a character table, the database fallback applies the same table with translate, see PropertySpecifications.
+public final class TextAnalyzer {
+    private static final Locale CZECH = Locale.forLanguageTag("cs-CZ");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Letters with a stroke do not decompose, they are folded explicitly. Letters folding to more than one character,
+    // like sharp s, are kept.
+    private static final String STROKED_LETTERS = "\u0142\u00f8\u0111\u0127\u0167";
+    private static final String STROKED_FOLDED = "lodht";
+
+    // Lowercase Latin letters with diacritics and the base letter each one folds to, followed by the combining marks,
+    // which folding removes
+    public static final String FOLD_FROM;
+    public static final String FOLD_TO;
+    // The same table indexed by character, REMOVED for a combining mark
+    private static final char REMOVED = 0;
+    private static final char[] FOLDS = new char[0x2000];
+
+    static {
+        StringBuilder from = new StringBuilder();
+        StringBuilder to = new StringBuilder();
+        addFolds(from, to, '\u00c0', '\u024f');
+        addFolds(from, to, '\u1e00', '\u1eff');
+        from.append(STROKED_LETTERS);
+        to.append(STROKED_FOLDED);
+        for (char mark = 0x0300; mark <= 0x036F; mark++) {
+            from.append(mark);
+        }
+        FOLD_FROM = from.toString();
+        FOLD_TO = to.toString();
+        for (char character = 0; character < FOLDS.length; character++) {
+            FOLDS[character] = character;
+        }
+        for (int i = 0; i < FOLD_FROM.length(); i++) {
+            FOLDS[FOLD_FROM.charAt(i)] = i < FOLD_TO.length() ? FOLD_TO.charAt(i) : REMOVED;
+        }
+    }
+
+    private TextAnalyzer() {
+    }
+
+    static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lowercase = text.toLowerCase(CZECH);
+        StringBuilder folded = new StringBuilder(lowercase.length());
+        for (int i = 0; i < lowercase.length(); i++) {
+            char character = lowercase.charAt(i);
+            char folding = character < FOLDS.length ? FOLDS[character] : character;
+            if (folding != REMOVED) {
+                folded.append(folding);
+            }
+        }
+        return folded.toString();
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Lowercase letters of the range whose canonical decomposition is a single base letter with marks
+    private static void addFolds(StringBuilder from, StringBuilder to, char first, char last) {
+        for (char letter = first; letter <= last; letter++) {
+            if (!Character.isLetter(letter) || Character.toLowerCase(letter) != letter) {
+                continue;
+            }
+            String base = COMBINING_MARKS.matcher(Normalizer.normalize(String.valueOf(letter), Normalizer.Form.NFD)).replaceAll("");
+            if (base.length() == 1 && base.charAt(0) != letter) {
+                from.append(letter);
+                to.append(base);
+            }
+        }
+    }
+}
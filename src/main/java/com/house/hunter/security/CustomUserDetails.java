@@ -12,11 +12,13 @@ import java.util.List;
 public class CustomUserDetails implements UserDetails {
     private final String username;
     private final String password;
+    private final long tokenEpoch;
     Collection<? extends GrantedAuthority> authorities;
 
     public CustomUserDetails(User user) {
         this.username = user.getEmail();
         this.password = user.getPassword();
+        this.tokenEpoch = user.getTokenEpoch() == null ? 0 : user.getTokenEpoch();
         List<GrantedAuthority> auths = new ArrayList<>();
         auths.add(new SimpleGrantedAuthority("ROLE_" + user.getRole().name().toUpperCase()));
         this.authorities = auths;
@@ -37,6 +39,11 @@ public class CustomUserDetails implements UserDetails {
         return username;
     }
 
+    // Oldest epoch of the access tokens that are still valid
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
@@ -5,6 +5,7 @@ import com.house.hunter.exception.InvalidTokenException;
 import com.house.hunter.model.dto.error.ErrorDto;
 import com.house.hunter.util.BlacklistedTokenService;
 import com.house.hunter.util.JWTUtil;
+import com.house.hunter.util.VerifiedToken;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -32,24 +33,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private JWTUtil jwtUtil;
     private UserDetailsService userDetailsServiceImpl;
     private BlacklistedTokenService blacklistedTokenService;
+    private PrincipalCache principalCache;
+    private VerifiedTokenCache verifiedTokenCache;
     private final ObjectMapper objectMapper;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
         String token = null;
-        String username = null;
+        VerifiedToken verifiedToken = null;
         try {
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
                 token = authHeader.substring(7);
-                username = jwtUtil.getEmailFromToken(token);
+                // The token is parsed and its signature checked at most once, and not at all when it is cached
+                verifiedToken = verifiedTokenCache.get(token, jwtUtil::verifyToken);
             }
 
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsServiceImpl.loadUserByUsername(username);
-                final boolean isValid = jwtUtil.validateTokenWithoutPrefix(token);
-                final boolean isBlacklisted = blacklistedTokenService.isBlacklisted(token);
-                if (isValid && !isBlacklisted) {
+            if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                final boolean isValid = verifiedToken != null;
+                if (isValid && !blacklistedTokenService.isBlacklisted(token)) {
+                    UserDetails userDetails = principalCache.get(verifiedToken.email(), userDetailsServiceImpl::loadUserByUsername);
+                    if (userDetails instanceof CustomUserDetails customUserDetails && verifiedToken.epoch() < customUserDetails.getTokenEpoch()) {
+                        SecurityContextHolder.clearContext();
+                        throw new InvalidTokenException("Token has been revoked");
+                    }
                     // if token is valid configure Spring Security to manually set authentication
                     final UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
                     authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
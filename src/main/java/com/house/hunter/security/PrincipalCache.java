@@ -0,0 +1,128 @@
+package com.house.hunter.security;
+
+import com.house.hunter.event.UserAccountChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+// Principals of the authenticated requests by email, so the JWT filter does not load the user on every call. Entries
+// are evicted after the account changes, on every instance through a Redis channel. The TTL bounds how long a missed
+// invalidation, e.g. while Redis is unreachable, can keep a stale principal around.
+@Component
+public class PrincipalCache implements MessageListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PrincipalCache.class);
+    static final String INVALIDATION_CHANNEL = "security:principal:invalidate";
+
+    private final Map<String, TimedPrincipal> entries = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile long generation;
+
+    public PrincipalCache(StringRedisTemplate redisTemplate, RedisMessageListenerContainer listenerContainer,
+                          MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.ttl}") long ttlMillis,
+                          @Value("${security.principal-cache.max-entries}") int maxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("principal.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("principal.cache.requests", "result", "miss");
+        Gauge.builder("principal.cache.entries", entries, Map::size).register(meterRegistry);
+        listenerContainer.addMessageListener(this, ChannelTopic.of(INVALIDATION_CHANNEL));
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        TimedPrincipal timed = entries.get(email);
+        if (timed != null && timed.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return timed.principal();
+        }
+        misses.increment();
+        long loadGeneration = generation;
+        UserDetails principal = loader.apply(email);
+        put(email, principal, loadGeneration);
+        return principal;
+    }
+
+    private void put(String email, UserDetails principal, long loadGeneration) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= maxEntries && !entries.containsKey(email)) {
+            evict(now);
+        }
+        store(email, principal, loadGeneration, now);
+    }
+
+    // Synchronized with invalidate, a principal loaded before an invalidation is not stored after it
+    private synchronized void store(String email, UserDetails principal, long loadGeneration, long now) {
+        if (loadGeneration == generation) {
+            entries.put(email, new TimedPrincipal(principal, now + ttlMillis));
+        }
+    }
+
+    // A full cache drops the expired principals and then arbitrary ones down to nine tenths, so the scan is not
+    // repeated for every miss. One thread evicts outside of the invalidation lock, the others do not wait for it.
+    private void evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(timed -> timed.expiresAt() <= now);
+            Iterator<String> emails = entries.keySet().iterator();
+            while (entries.size() >= maxEntries - maxEntries / 10 && emails.hasNext()) {
+                emails.next();
+                emails.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    public synchronized void invalidate(String email) {
+        generation++;
+        entries.remove(email);
+    }
+
+    // After the commit, a principal loaded before it would otherwise be cached again from the old row
+    @TransactionalEventListener(fallbackExecution = true)
+    public void handleUserAccountChangedEvent(UserAccountChangedEvent event) {
+        invalidate(event.getEmail());
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, event.getEmail());
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not publish the principal invalidation of {}, other instances keep it until it expires",
+                    event.getEmail(), e);
+        }
+    }
+
+    // Invalidations of all instances, including the ones this instance published
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private record TimedPrincipal(UserDetails principal, long expiresAt) {
+    }
+}
@@ -4,12 +4,13 @@ import com.house.hunter.exception.UserNotFoundException;
 import com.house.hunter.repository.UserRepository;
 import lombok.AllArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.stereotype.Component;
 
 @Component
 @AllArgsConstructor
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
 
     @Override
@@ -18,4 +19,11 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 userRepository.findByEmail(email).orElseThrow(() -> new UserNotFoundException(email));
         return new CustomUserDetails(user);
     }
+
+    // Stores the password re-hashed at the current strength, the password itself and the issued tokens stay valid
+    @Override
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        userRepository.updatePassword(userDetails.getUsername(), userDetails.getPassword(), newPassword);
+        return loadUserByUsername(userDetails.getUsername());
+    }
 }
@@ -0,0 +1,65 @@
+package com.house.hunter.security;
+
+import com.house.hunter.util.VerifiedToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Access tokens whose signature has already been checked, by the token itself, until the token expires. A client sends
+// the same token on every call, which then skips the HMAC and the decoding of the claims. Revocation is still checked
+// on every request through the blacklist.
+@Component
+public class VerifiedTokenCache {
+    private final Map<String, VerifiedToken> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final Counter hits;
+    private final Counter misses;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.verified-cache.max-entries}") int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.hits = meterRegistry.counter("jwt.verified.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("jwt.verified.cache.requests", "result", "miss");
+        Gauge.builder("jwt.verified.cache.entries", entries, Map::size).register(meterRegistry);
+    }
+
+    // An expired entry is verified again, so the verifier reports the expiry. Tokens it rejects are not cached.
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        VerifiedToken verified = entries.get(token);
+        long now = System.currentTimeMillis();
+        if (verified != null) {
+            if (verified.expiresAt().toEpochMilli() > now) {
+                hits.increment();
+                return verified;
+            }
+            entries.remove(token, verified);
+        }
+        misses.increment();
+        verified = verifier.apply(token);
+        if (verified != null) {
+            put(token, verified, now);
+        }
+        return verified;
+    }
+
+    // A full cache drops the expired tokens and then arbitrary ones down to nine tenths, so the scan is not repeated
+    // for every new token
+    private void put(String token, VerifiedToken verified, long now) {
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.expiresAt().toEpochMilli() <= now);
+            Iterator<String> tokens = entries.keySet().iterator();
+            while (entries.size() >= maxEntries - maxEntries / 10 && tokens.hasNext()) {
+                tokens.next();
+                tokens.remove();
+            }
+        }
+        entries.put(token, verified);
+    }
+}
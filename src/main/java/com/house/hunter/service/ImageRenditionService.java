@@ -0,0 +1,8 @@
+package com.house.hunter.service;
+
+public interface ImageRenditionService {
+    // Queues the renditions of a stored image file, returns false when the queue is full
+    boolean submit(String filename);
+
+    void submitBacklog();
+}
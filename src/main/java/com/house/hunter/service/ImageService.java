@@ -1,5 +1,9 @@
 package com.house.hunter.service;
 
+import com.house.hunter.constant.ImageSize;
+import com.house.hunter.model.dto.property.PropertyImageDTO;
+import com.house.hunter.storage.FileRegion;
+import com.house.hunter.storage.StoredVersion;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -11,6 +15,12 @@ public interface ImageService {
 
     List<byte[]> getImages(UUID propertyId) throws IOException;
 
+    List<PropertyImageDTO> getImageLinks(UUID propertyId);
+
+    StoredVersion getImageVersion(UUID propertyId, UUID imageId, ImageSize size);
+
+    FileRegion getImageFile(StoredVersion version);
+
     void deleteImage(UUID imageId, UUID propertyId) throws IOException;
 
     void deleteImages(UUID propertyId) throws IOException;
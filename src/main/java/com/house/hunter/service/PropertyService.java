@@ -6,6 +6,8 @@ import com.house.hunter.model.dto.property.GetPropertyRequestDTO;
 import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
 import com.house.hunter.model.dto.property.UpdatePropertyDTO;
 import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyPinsDTO;
+import com.house.hunter.model.dto.search.PropertyScrollDTO;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,7 +20,11 @@ public interface PropertyService {
 
     void deleteProperty(UUID id);
 
-    Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO searchCriteria, Pageable pageable);
+    Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO searchCriteria, Pageable pageable, boolean includeFacets);
+
+    PropertyScrollDTO scrollProperties(PropertySearchCriteriaDTO searchCriteria, String cursor, String sort, int size);
+
+    PropertyPinsDTO getPropertyPins(PropertySearchCriteriaDTO searchCriteria, int limit);
 
     List<GetPropertyDTO> getProperties(String email);
 
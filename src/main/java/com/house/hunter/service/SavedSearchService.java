@@ -0,0 +1,15 @@
+package com.house.hunter.service;
+
+import com.house.hunter.model.dto.search.CreateSavedSearchDTO;
+import com.house.hunter.model.dto.search.SavedSearchDTO;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SavedSearchService {
+    UUID createSavedSearch(CreateSavedSearchDTO createSavedSearchDTO);
+
+    List<SavedSearchDTO> getSavedSearches();
+
+    void deleteSavedSearch(UUID id);
+}
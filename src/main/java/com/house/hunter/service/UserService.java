@@ -5,6 +5,7 @@ import com.house.hunter.model.dto.user.GetAllUsersResponse;
 import com.house.hunter.model.dto.user.RequestFormDTO;
 import com.house.hunter.model.dto.user.UserGetResponse;
 import com.house.hunter.model.dto.user.UserRegistrationDto;
+import com.house.hunter.storage.StoredVersion;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -33,6 +34,8 @@ public interface UserService {
 
     Resource downloadFile(String filename);
 
+    StoredVersion getDocumentVersion(String filename);
+
     UUID uploadDocument(String documentType, MultipartFile file) throws IOException;
 
     void deleteDocument(String documentName);
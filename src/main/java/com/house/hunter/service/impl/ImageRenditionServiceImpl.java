@@ -0,0 +1,145 @@
+package com.house.hunter.service.impl;
+
+import com.house.hunter.constant.RenditionStatus;
+import com.house.hunter.event.ImageStoredEvent;
+import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.repository.ImageRepository;
+import com.house.hunter.service.ImageRenditionService;
+import com.house.hunter.storage.ImageCache;
+import com.house.hunter.util.ImageUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.imageio.IIOException;
+import java.awt.Dimension;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders the small, medium and large variants of uploaded images on a bounded pool. A file that does not fit into the
+// queue stays pending and is picked up by the backlog run, which also covers the images stored before renditions.
+@Service
+public class ImageRenditionServiceImpl implements ImageRenditionService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageRenditionServiceImpl.class);
+
+    private final ImageRepository imageRepository;
+    private final ImageUtil imageUtil = ImageUtil.getInstance();
+    private final ImageCache imageCache;
+    private final int backlogBatchSize;
+    // Larger originals are never decoded, they are marked failed
+    private final long maxPixels;
+    private final ThreadPoolExecutor renditionExecutor;
+    // Files queued or being rendered, they are still pending in the database
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public ImageRenditionServiceImpl(ImageRepository imageRepository, ImageCache imageCache,
+                                     @Value("${image.rendition.threads}") int threads,
+                                     @Value("${image.rendition.queue-capacity}") int queueCapacity,
+                                     @Value("${image.rendition.backlog.batch-size}") int backlogBatchSize,
+                                     @Value("${image.rendition.max-pixels}") long maxPixels) {
+        this.imageRepository = imageRepository;
+        this.imageCache = imageCache;
+        this.backlogBatchSize = backlogBatchSize;
+        this.maxPixels = maxPixels;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.renditionExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-rendition-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @TransactionalEventListener
+    public void handleImageStoredEvent(ImageStoredEvent event) {
+        event.getFilenames().forEach(this::submit);
+    }
+
+    @Override
+    public boolean submit(String filename) {
+        if (!inFlight.add(filename)) {
+            return true;
+        }
+        try {
+            renditionExecutor.execute(() -> render(filename));
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(filename);
+            LOGGER.debug("Rendition queue is full, {} is left to the backlog", filename);
+            return false;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        submitBacklog();
+    }
+
+    // Queues at most one batch per run and never more than the queue can take
+    @Override
+    @Scheduled(initialDelayString = "${image.rendition.backlog.interval}", fixedDelayString = "${image.rendition.backlog.interval}")
+    public void submitBacklog() {
+        try {
+            int capacity = Math.min(backlogBatchSize, renditionExecutor.getQueue().remainingCapacity());
+            if (capacity == 0) {
+                return;
+            }
+            // Files in flight are still pending, the page is widened to look past them
+            List<String> filenames = imageRepository.findFilenamesPendingRendition(PageRequest.of(0, capacity + inFlight.size()));
+            int submitted = 0;
+            for (String filename : filenames) {
+                if (submitted == capacity) {
+                    break;
+                }
+                if (!inFlight.contains(filename) && submit(filename)) {
+                    submitted++;
+                }
+            }
+            if (submitted > 0) {
+                LOGGER.info("Queued {} images of the rendition backlog", submitted);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to queue the rendition backlog", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renditionExecutor.shutdownNow();
+    }
+
+    // Files that cannot be decoded, are too large or are gone are marked failed, other errors leave them pending for a later run
+    private void render(String filename) {
+        try {
+            Dimension dimension = imageUtil.createRenditions(filename, maxPixels);
+            if (dimension == null) {
+                LOGGER.warn("Image {} has no readable format, it is served without renditions", filename);
+                imageRepository.updateRendition(filename, RenditionStatus.FAILED, null, null);
+            } else {
+                imageRepository.updateRendition(filename, RenditionStatus.READY, dimension.width, dimension.height);
+            }
+        } catch (IIOException | ImageNotFoundException e) {
+            LOGGER.warn("Could not render image {}: {}", filename, e.getMessage());
+            imageRepository.updateRendition(filename, RenditionStatus.FAILED, null, null);
+        } catch (Exception e) {
+            LOGGER.error("Failed to render image {}", filename, e);
+        } finally {
+            // A rendition rendered again replaces its file
+            imageUtil.getRenditionFiles(filename).forEach(imageCache::evict);
+            inFlight.remove(filename);
+        }
+    }
+}
@@ -1,40 +1,88 @@
 package com.house.hunter.service.impl;
 
+import com.house.hunter.constant.ImageSize;
+import com.house.hunter.constant.RenditionStatus;
+import com.house.hunter.event.ImageFilesReleasedEvent;
+import com.house.hunter.event.ImageStoredEvent;
 import com.house.hunter.exception.FileOperationException;
 import com.house.hunter.exception.IllegalAccessRequestException;
 import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.model.dto.property.PropertyImageDTO;
 import com.house.hunter.model.entity.Image;
 import com.house.hunter.model.entity.Property;
 import com.house.hunter.repository.ImageRepository;
 import com.house.hunter.repository.PropertyRepository;
 import com.house.hunter.security.CustomUserDetails;
 import com.house.hunter.service.ImageService;
+import com.house.hunter.storage.FileRegion;
+import com.house.hunter.storage.ImageCache;
+import com.house.hunter.storage.StoredVersion;
 import com.house.hunter.util.ImageUtil;
+import jakarta.annotation.PreDestroy;
 import jakarta.el.PropertyNotFoundException;
 import jakarta.transaction.Transactional;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class ImageServiceImpl implements ImageService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ImageServiceImpl.class);
+    private static final String IMAGE_URL = "/api/v1/properties/%s/images/%s";
 
     private final ImageRepository imageRepository;
     private final PropertyRepository propertyRepository;
 
-    public ImageServiceImpl(ImageRepository imageRepository, PropertyRepository propertyRepository) {
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final ImageCache imageCache;
+    // Copies and hashes the files of an upload in parallel. When the queue is full the request thread stages the file
+    // itself, so a burst of uploads slows down instead of failing.
+    private final ThreadPoolExecutor uploadExecutor;
+    // Released files stored again within it are left to the orphan collector, their new rows may not be committed yet
+    private final long releaseGrace;
+
+    public ImageServiceImpl(ImageRepository imageRepository, PropertyRepository propertyRepository,
+                            ApplicationEventPublisher applicationEventPublisher, ImageCache imageCache,
+                            @Value("${image.upload.threads}") int uploadThreads,
+                            @Value("${image.upload.queue-capacity}") int uploadQueueCapacity,
+                            @Value("${orphan-files.grace}") long releaseGrace) {
         this.imageRepository = imageRepository;
         this.propertyRepository = propertyRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.imageCache = imageCache;
+        this.releaseGrace = releaseGrace;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.uploadExecutor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(uploadQueueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-upload-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
 
@@ -44,29 +92,15 @@ public class ImageServiceImpl implements ImageService {
     public List<UUID> uploadImage(UUID propertyId, MultipartFile[] images) throws IOException {
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Property not found with id: " + propertyId));
-        List<String> savedFilenames = new ArrayList<>();
-        List<Image> savedImages = new ArrayList<>();
+        List<String> storedFilenames = new ArrayList<>();
+        List<Image> savedImages;
         try {
-            for (MultipartFile imageFile : images) {
-                String filename = imageUtil.saveImages(imageFile, true);
-                savedFilenames.add(filename);
-                Image image = new Image(null, filename, LocalDateTime.now(), property);
-                Image savedImage = imageRepository.save(image);
-                savedImages.add(savedImage);
-                LOGGER.info("Image uploaded: {}", filename);
-            }
+            savedImages = saveImages(images, property, true, Map.of(), storedFilenames);
         } catch (Exception e) {
-            // Delete locally saved images in case of an exception
-            for (String filename : savedFilenames) {
-                try {
-                    imageUtil.deleteImage(filename);
-                } catch (IOException ex) {
-                    LOGGER.error("Error deleting image: {}", filename, ex);
-                    throw e;
-                }
-            }
+            deleteStoredFiles(storedFilenames);
             throw e;
         }
+        publishStoredFiles(storedFilenames);
 
         return savedImages.stream().map(Image::getId).toList();
     }
@@ -75,41 +109,32 @@ public class ImageServiceImpl implements ImageService {
     public List<UUID> updateImage(UUID propertyId, MultipartFile[] images) throws IOException {
         Property property = propertyRepository.findById(propertyId)
                 .orElseThrow(() -> new PropertyNotFoundException("Property not found with id: " + propertyId));
-        List<String> savedFilenames = new ArrayList<>();
-        List<Image> savedImages = new ArrayList<>();
+        checkOwnership(property);
+        // The replaced files are released after the new images are saved, so content uploaded again is not rewritten
+        List<Image> replacedImages = detachImages(property);
+        Map<String, Image> replacedByHash = new HashMap<>();
+        replacedImages.stream().filter(image -> image.getContentHash() != null)
+                .forEach(image -> replacedByHash.putIfAbsent(image.getContentHash(), image));
+        List<String> storedFilenames = new ArrayList<>();
+        List<Image> savedImages;
         try {
-            deleteImages(propertyId);
-            for (MultipartFile imageFile : images) {
-                String filename = imageUtil.saveUpdatedImages(imageFile);
-                savedFilenames.add(filename);
-                Image image = new Image(null, filename, LocalDateTime.now(), property);
-                Image savedImage = imageRepository.save(image);
-                savedImages.add(savedImage);
-                LOGGER.info("Image uploaded: {}", filename);
-            }
+            savedImages = saveImages(images, property, false, replacedByHash, storedFilenames);
         } catch (Exception e) {
-            // Delete locally saved images in case of an exception
-            for (String filename : savedFilenames) {
-                try {
-                    imageUtil.deleteImage(filename);
-                } catch (IOException ex) {
-                    LOGGER.error("Error deleting image: {}", filename, ex);
-                    throw e;
-                }
-            }
+            deleteStoredFiles(storedFilenames);
             throw e;
         }
+        releaseFiles(replacedImages.stream().map(Image::getFilename).toList());
+        publishStoredFiles(storedFilenames);
 
         return savedImages.stream().map(Image::getId).toList();
     }
 
-
     public List<byte[]> getImages(UUID propertyId) throws PropertyNotFoundException {
         List<Image> images = imageRepository.findImagesByPropertyId(propertyId).orElseThrow(() -> new PropertyNotFoundException("Property not found with id: " + propertyId));
         return images.stream()
                 .map(image -> {
                     try {
-                        return imageUtil.getImage(image.getFilename());
+                        return imageCache.read(imageUtil.getImageRegion(image.getFilename()));
                     } catch (IOException e) {
                         throw new FileOperationException(e.getMessage());
                     }
@@ -118,48 +143,200 @@ public class ImageServiceImpl implements ImageService {
                 .toList();
     }
 
-    @Transactional
-    public void deleteImage(UUID imageId, UUID propertyId) {
-        if (isAdmin()) {
-            imageRepository.deleteById(imageId);
-            return;
+    public List<PropertyImageDTO> getImageLinks(UUID propertyId) {
+        List<Image> images = imageRepository.findImagesByPropertyId(propertyId).orElseThrow(() -> new PropertyNotFoundException("Property not found with id: " + propertyId));
+        return images.stream()
+                .map(image -> new PropertyImageDTO(image.getId(), String.format(IMAGE_URL, propertyId, image.getId())))
+                .toList();
+    }
+
+    // The original is served while the renditions are pending, when they could not be rendered and for the sizes the
+    // original already fits into. Only the pending case may change later.
+    public StoredVersion getImageVersion(UUID propertyId, UUID imageId, ImageSize size) {
+        Image image = imageRepository.findImageByIdAndPropertyId(imageId, propertyId)
+                .orElseThrow(() -> new ImageNotFoundException("Image not found with id: " + imageId));
+        boolean rendered = image.getRenditionStatus() == RenditionStatus.READY || image.getRenditionStatus() == RenditionStatus.FAILED;
+        ImageSize servedSize = size != null && image.getRenditionStatus() == RenditionStatus.READY && image.getWidth() != null
+                && Math.max(image.getWidth(), image.getHeight()) > size.getMaxEdge() ? size : null;
+        return StoredVersion.of(image.getFilename(), image.getContentHash(), servedSize, image.getCreatedAt(),
+                size == null || rendered);
+    }
+
+    public FileRegion getImageFile(StoredVersion version) {
+        if (version.size() != null) {
+            FileRegion rendition = imageUtil.getRenditionRegion(version.filename(), version.size());
+            if (rendition != null) {
+                return rendition;
+            }
         }
+        return imageUtil.getImageRegion(version.filename());
+    }
 
+    @Transactional
+    public void deleteImage(UUID imageId, UUID propertyId) {
         Image image = imageRepository.findById(imageId)
                 .orElseThrow(() -> new ImageNotFoundException("Image not found with id: " + imageId));
 
         Property property = image.getProperty();
 
-        if (!property.getId().equals(propertyId) || !property.getOwner().getEmail().equals(getAuthenticatedUserEmail())) {
+        if (!isAdmin() && (!property.getId().equals(propertyId) || !property.getOwner().getEmail().equals(getAuthenticatedUserEmail()))) {
             throw new IllegalAccessRequestException();
         }
         imageRepository.delete(image);
         LOGGER.info("Image deleted: {}", image.getFilename());
-        try {
-            imageUtil.deleteImage(image.getFilename());
-        } catch (IOException e) {
-            throw new FileOperationException(e.getMessage());
-        }
+        releaseFiles(List.of(image.getFilename()));
     }
 
 
     @Transactional
     public void deleteImages(UUID propertyId) {
         Property property = propertyRepository.findById(propertyId).orElseThrow(PropertyNotFoundException::new);
+        checkOwnership(property);
+        releaseFiles(detachImages(property).stream().map(Image::getFilename).toList());
+    }
+
+    // Stages the uploads in parallel and looks their hashes up with one query, an image with the same content as a
+    // stored image or an earlier file of the upload is either rejected or shares the stored file and its renditions.
+    // The replaced images are looked up first, their rows are already deleted when the query flushes. The rows are
+    // inserted in JDBC batches, files written by this call are added to storedFilenames.
+    private List<Image> saveImages(MultipartFile[] imageFiles, Property property, boolean isDuplicatedCheck,
+                                   Map<String, Image> replacedImages, List<String> storedFilenames) throws IOException {
+        List<ImageUtil.StagedImage> stagedImages = stageAll(imageFiles);
+        try {
+            Map<String, Image> existingImages = new HashMap<>(replacedImages);
+            Set<String> unknownHashes = stagedImages.stream().map(ImageUtil.StagedImage::contentHash)
+                    .filter(hash -> !existingImages.containsKey(hash)).collect(Collectors.toSet());
+            if (!unknownHashes.isEmpty()) {
+                imageRepository.findByContentHashIn(unknownHashes)
+                        .forEach(image -> existingImages.putIfAbsent(image.getContentHash(), image));
+            }
+            List<Image> images = new ArrayList<>(stagedImages.size());
+            for (ImageUtil.StagedImage stagedImage : stagedImages) {
+                Image existing = existingImages.get(stagedImage.contentHash());
+                Image image;
+                if (existing != null) {
+                    if (isDuplicatedCheck) {
+                        throw new IllegalArgumentException("Image with the same data already exists");
+                    }
+                    // A transaction releasing the file after it commits sees it was just stored and keeps it
+                    imageUtil.touch(existing.getFilename());
+                    image = new Image(null, existing.getFilename(), stagedImage.contentHash(), LocalDateTime.now(),
+                            property, existing.getRenditionStatus(), existing.getWidth(), existing.getHeight());
+                } else {
+                    String filename = imageUtil.store(stagedImage);
+                    storedFilenames.add(filename);
+                    image = new Image(null, filename, stagedImage.contentHash(), LocalDateTime.now(), property,
+                            RenditionStatus.PENDING, null, null);
+                    existingImages.put(stagedImage.contentHash(), image);
+                }
+                images.add(image);
+            }
+            List<Image> savedImages = imageRepository.saveAll(images);
+            imageRepository.flush();
+            LOGGER.info("Images uploaded: {}", savedImages.stream().map(Image::getFilename).toList());
+            return savedImages;
+        } finally {
+            // Duplicates, and the files not stored because of a failure
+            for (ImageUtil.StagedImage stagedImage : stagedImages) {
+                imageUtil.discard(stagedImage);
+            }
+        }
+    }
 
+    // Copies every upload into a staged file, on failure the files staged so far are deleted
+    private List<ImageUtil.StagedImage> stageAll(MultipartFile[] imageFiles) throws IOException {
+        List<Future<ImageUtil.StagedImage>> futures = new ArrayList<>(imageFiles.length);
+        for (MultipartFile imageFile : imageFiles) {
+            futures.add(uploadExecutor.submit(() -> imageUtil.stage(imageFile)));
+        }
+        List<ImageUtil.StagedImage> stagedImages = new ArrayList<>(imageFiles.length);
+        Throwable failure = null;
+        for (Future<ImageUtil.StagedImage> future : futures) {
+            try {
+                stagedImages.add(future.get());
+            } catch (ExecutionException e) {
+                failure = failure == null ? e.getCause() : failure;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = failure == null ? e : failure;
+                futures.forEach(pending -> pending.cancel(true));
+            }
+        }
+        if (failure == null) {
+            return stagedImages;
+        }
+        for (ImageUtil.StagedImage stagedImage : stagedImages) {
+            imageUtil.discard(stagedImage);
+        }
+        if (failure instanceof IOException e) {
+            throw e;
+        }
+        if (failure instanceof RuntimeException e) {
+            throw e;
+        }
+        throw new FileOperationException(failure.getMessage());
+    }
+
+    // Renditions are rendered once the images are committed
+    private void publishStoredFiles(List<String> storedFilenames) {
+        if (!storedFilenames.isEmpty()) {
+            applicationEventPublisher.publishEvent(new ImageStoredEvent(List.copyOf(storedFilenames)));
+        }
+    }
+
+    private void checkOwnership(Property property) {
         if (!isAdmin() && !property.getOwner().getEmail().equals(getAuthenticatedUserEmail())) {
             throw new IllegalAccessRequestException();
         }
+    }
 
-        property.getImages().forEach(image -> {
+    private List<Image> detachImages(Property property) {
+        List<Image> images = List.copyOf(property.getImages());
+        property.getImages().clear();
+        return images;
+    }
+
+    // The files are deleted once the transaction has completed, see handleImageFilesReleasedEvent
+    private void releaseFiles(Collection<String> filenames) {
+        applicationEventPublisher.publishEvent(new ImageFilesReleasedEvent(List.copyOf(new HashSet<>(filenames))));
+    }
+
+    // Files stored before a failure, they may be shared with a concurrent upload of the same content
+    private void deleteStoredFiles(List<String> storedFilenames) {
+        if (!storedFilenames.isEmpty()) {
+            releaseFiles(storedFilenames);
+        }
+    }
+
+    // Only committed rows are seen here. A file no row references is deleted unless it was stored within the grace
+    // period, a concurrent upload may still be about to commit a row for it.
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void handleImageFilesReleasedEvent(ImageFilesReleasedEvent event) {
+        long cutoff = System.currentTimeMillis() - releaseGrace;
+        for (String filename : event.getFilenames()) {
             try {
-                imageUtil.deleteImage(image.getFilename());
-            } catch (IOException e) {
-                throw new FileOperationException(e.getMessage());
+                if (!imageRepository.existsByFilename(filename) && imageUtil.storedBefore(filename, cutoff)) {
+                    deleteFiles(filename);
+                }
+            } catch (IOException | ImageNotFoundException e) {
+                LOGGER.error("Error deleting image: {}", filename, e);
             }
-        });
+        }
+    }
 
-        property.getImages().clear();
+    // The cached bytes are dropped with the files, a later upload of the same content is stored under the same name
+    private void deleteFiles(String filename) throws IOException {
+        List<FileRegion> cacheKeys = imageUtil.getImageFiles(filename);
+        try {
+            imageUtil.deleteImage(filename);
+        } finally {
+            cacheKeys.forEach(imageCache::evict);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdown();
     }
 
     private String getAuthenticatedUserEmail() {
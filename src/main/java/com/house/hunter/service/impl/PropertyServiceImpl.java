@@ -4,38 +4,57 @@ import com.house.hunter.constant.PropertyStatus;
 import com.house.hunter.constant.UserAccountStatus;
 import com.house.hunter.constant.UserRole;
 import com.house.hunter.constant.UserVerificationStatus;
+import com.house.hunter.event.PropertyDeletionEvent;
 import com.house.hunter.event.PropertyRejectionEvent;
+import com.house.hunter.event.PropertyUpdateEvent;
 import com.house.hunter.event.PropertyVerificationEvent;
 import com.house.hunter.exception.IllegalAccessRequestException;
+import com.house.hunter.exception.IllegalRequestException;
 import com.house.hunter.exception.InvalidAccountStatusException;
 import com.house.hunter.exception.PropertyAlreadyExistsException;
 import com.house.hunter.exception.PropertyNotFoundException;
 import com.house.hunter.exception.PropertyNotVerifiedException;
 import com.house.hunter.exception.UserNotFoundException;
+import com.house.hunter.mapper.PropertyMapper;
 import com.house.hunter.model.dto.property.CreatePropertyDTO;
 import com.house.hunter.model.dto.property.GetPropertyDTO;
 import com.house.hunter.model.dto.property.GetPropertyRequestDTO;
 import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
 import com.house.hunter.model.dto.property.UpdatePropertyDTO;
+import com.house.hunter.model.dto.search.FacetedPage;
 import com.house.hunter.model.dto.search.PropertyDTO;
+import com.house.hunter.model.dto.search.PropertyPinDTO;
+import com.house.hunter.model.dto.search.PropertyPinsDTO;
+import com.house.hunter.model.dto.search.PropertyScrollDTO;
+import com.house.hunter.model.dto.search.PropertyView;
 import com.house.hunter.model.dto.search.UserDTO;
 import com.house.hunter.model.entity.Property;
 import com.house.hunter.model.entity.User;
 import com.house.hunter.repository.PropertyRepository;
 import com.house.hunter.repository.UserRepository;
+import com.house.hunter.search.CachedSearchPage;
+import com.house.hunter.search.FacetCounter;
+import com.house.hunter.search.PropertySearchIndex;
+import com.house.hunter.search.PropertySearchResult;
+import com.house.hunter.search.SearchCacheKey;
+import com.house.hunter.search.SearchResultCache;
 import com.house.hunter.security.CustomUserDetails;
 import com.house.hunter.service.EmailService;
 import com.house.hunter.service.PropertyService;
+import com.house.hunter.util.GeoFilter;
 import com.house.hunter.util.MailUtil;
+import com.house.hunter.util.PropertyCursor;
 import com.house.hunter.util.PropertySpecifications;
 import jakarta.transaction.Transactional;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.mail.javamail.MimeMessagePreparator;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -43,29 +62,39 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PropertyServiceImpl implements PropertyService {
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(PropertyServiceImpl.class);
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final int MAX_PINS = 5000;
 
     private final PropertyRepository propertyRepository;
     private final UserRepository userRepository;
-    private final ModelMapper modelMapper;
+    private final PropertyMapper propertyMapper;
     private final EmailService emailService;
+    private final PropertySearchIndex propertySearchIndex;
+    private final ObjectProvider<SearchResultCache> searchResultCache;
 
     private final ApplicationEventPublisher applicationEventPublisher;
 
     @Autowired
     public PropertyServiceImpl(PropertyRepository propertyRepository, UserRepository userRepository,
-                               ModelMapper modelMapper, ApplicationEventPublisher applicationEventPublisher,
-                               EmailService emailService) {
+                               PropertyMapper propertyMapper, ApplicationEventPublisher applicationEventPublisher,
+                               EmailService emailService, PropertySearchIndex propertySearchIndex,
+                               ObjectProvider<SearchResultCache> searchResultCache) {
         this.propertyRepository = propertyRepository;
         this.userRepository = userRepository;
-        this.modelMapper = modelMapper;
+        this.propertyMapper = propertyMapper;
         this.applicationEventPublisher = applicationEventPublisher;
         this.emailService = emailService;
+        this.propertySearchIndex = propertySearchIndex;
+        this.searchResultCache = searchResultCache;
     }
 
     @Override
@@ -87,7 +116,7 @@ public class PropertyServiceImpl implements PropertyService {
         }
 
         Property property = Optional.of(propertyCreateDto)
-                .map(dto -> modelMapper.map(dto, Property.class))
+                .map(propertyMapper::toProperty)
                 .map(prop -> {
                     User owner = userRepository.findByEmail(propertyCreateDto.getOwnerEmail())
                             .orElseThrow(() -> new UserNotFoundException(propertyCreateDto.getOwnerEmail()));
@@ -103,18 +132,94 @@ public class PropertyServiceImpl implements PropertyService {
 
 
     @Override
-    public Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO searchCriteria, Pageable pageable) {
-        Optional<User> requestMaker = userRepository.findByEmail(getAuthenticatedUserEmail(true));
-        Page<Property> properties = propertyRepository.findAll(PropertySpecifications.createSpecification(searchCriteria), pageable);
-        if (requestMaker.isPresent()) {
-            LOGGER.info("User found with email: {}", requestMaker.get().getEmail());
-            User user = requestMaker.get();
-            if (user.getVerificationStatus() == UserVerificationStatus.VERIFIED && user.getAccountStatus() == UserAccountStatus.ACTIVE) {
-                LOGGER.info("User is verified and active, showing phone number");
-                return properties.map(property -> convertToDTO(property, true));
+    public Page<PropertyDTO> searchProperties(PropertySearchCriteriaDTO searchCriteria, Pageable pageable, boolean includeFacets) {
+        boolean includeOwner = canSeeOwnerContact();
+        SearchResultCache cache = searchResultCache.getIfAvailable();
+        if (cache == null) {
+            return toPage(findPage(searchCriteria, pageable, includeFacets, includeOwner), pageable);
+        }
+        SearchCacheKey key = SearchCacheKey.of(searchCriteria, pageable, includeFacets, includeOwner);
+        CachedSearchPage page = cache.get(key);
+        if (page == null) {
+            long generation = cache.generation();
+            page = findPage(searchCriteria, pageable, includeFacets, includeOwner);
+            cache.put(key, searchCriteria, page, generation);
+        }
+        return toPage(page, pageable);
+    }
+
+    @Override
+    public PropertyScrollDTO scrollProperties(PropertySearchCriteriaDTO searchCriteria, String cursor, String sort, int size) {
+        PropertyCursor position = cursor != null && !cursor.isEmpty() ? PropertyCursor.decode(cursor) : PropertyCursor.initial(sort);
+        int limit = Math.min(Math.max(size, 1), MAX_SCROLL_SIZE);
+        // Seeks past the last sort key instead of counting and skipping rows, so deep pages cost the same as the first one.
+        // One extra row tells whether there is a next page.
+        List<PropertyView> views = propertyRepository.findViews(
+                PropertySpecifications.createSpecification(searchCriteria).and(position.seek()), position.sort(), limit + 1);
+        boolean hasNext = views.size() > limit;
+        List<PropertyView> window = hasNext ? views.subList(0, limit) : views;
+        boolean includeOwner = canSeeOwnerContact();
+        List<PropertyDTO> content = window.stream()
+                .map(view -> propertyMapper.toPropertyDTO(view, includeOwner))
+                .collect(Collectors.toList());
+        String nextCursor = hasNext ? position.after(window.get(window.size() - 1)).encode() : null;
+        return new PropertyScrollDTO(content, nextCursor, hasNext);
+    }
+
+    @Override
+    public PropertyPinsDTO getPropertyPins(PropertySearchCriteriaDTO searchCriteria, int limit) {
+        if (GeoFilter.of(searchCriteria) == null) {
+            throw new IllegalRequestException("Pins need a bounding box, radius or polygon");
+        }
+        int pinLimit = Math.min(Math.max(limit, 1), MAX_PINS);
+        if (propertySearchIndex.supports(searchCriteria, Pageable.unpaged())) {
+            return propertySearchIndex.pins(searchCriteria, pinLimit);
+        }
+        Specification<Property> specification = PropertySpecifications.createSpecification(searchCriteria);
+        List<PropertyPinDTO> pins = propertyRepository.findPins(specification, pinLimit + 1);
+        boolean truncated = pins.size() > pinLimit;
+        long total = truncated ? propertyRepository.count(specification) : pins.size();
+        return new PropertyPinsDTO(truncated ? pins.subList(0, pinLimit) : pins, total, truncated);
+    }
+
+    private CachedSearchPage findPage(PropertySearchCriteriaDTO searchCriteria, Pageable pageable, boolean includeFacets, boolean includeOwner) {
+        Page<PropertyView> properties;
+        FacetCounter facets;
+        if (propertySearchIndex.supports(searchCriteria, pageable)) {
+            PropertySearchResult result = propertySearchIndex.search(searchCriteria, pageable, includeFacets);
+            properties = loadIndexedPage(result, pageable);
+            facets = result.facets();
+        } else {
+            properties = propertyRepository.findViews(PropertySpecifications.createSpecification(searchCriteria), pageable);
+            facets = includeFacets ? propertyRepository.countFacets(searchCriteria) : null;
+        }
+        List<PropertyDTO> content = properties.stream()
+                .map(view -> propertyMapper.toPropertyDTO(view, includeOwner))
+                .collect(Collectors.toList());
+        return new CachedSearchPage(content, properties.getTotalElements(), facets == null ? null : facets.toDTO());
+    }
+
+    private Page<PropertyDTO> toPage(CachedSearchPage page, Pageable pageable) {
+        return page.facets() == null
+                ? new PageImpl<>(page.content(), pageable, page.total())
+                : new FacetedPage<>(page.content(), pageable, page.total(), page.facets());
+    }
+
+    private Page<PropertyView> loadIndexedPage(PropertySearchResult result, Pageable pageable) {
+        Map<UUID, PropertyView> loaded = propertyRepository.findViewsByIdIn(result.ids()).stream()
+                .collect(Collectors.toMap(PropertyView::id, Function.identity()));
+        List<PropertyView> properties = new ArrayList<>(result.ids().size());
+        for (UUID id : result.ids()) {
+            PropertyView property = loaded.get(id);
+            if (property == null || property.status() != PropertyStatus.VERIFIED) {
+                // Removed without going through this service (e.g. data retention), drop it from the index
+                LOGGER.warn("Property {} is no longer verified, removing it from the search index", id);
+                propertySearchIndex.remove(id);
+                continue;
             }
+            properties.add(property);
         }
-        return properties.map(property -> convertToDTO(property, false));
+        return new PageImpl<>(properties, pageable, result.total());
     }
 
 
@@ -131,41 +236,27 @@ public class PropertyServiceImpl implements PropertyService {
             property = propertyRepository.findByOwnerEmailAndId(getAuthenticatedUserEmail(false), id)
                     .orElseThrow(PropertyNotFoundException::new);
         }
-        return modelMapper.map(property, UpdatePropertyDTO.class);
+        applicationEventPublisher.publishEvent(new PropertyUpdateEvent(property));
+        return propertyMapper.toUpdatePropertyDTO(property);
     }
 
     @Override
     public List<GetPropertyDTO> getProperties(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
-        return user.getProperties().stream()
-                .filter(property -> property.getStatus() == PropertyStatus.VERIFIED)
-                .map(property -> {
-                    GetPropertyDTO getPropertyDTO = modelMapper.map(property, GetPropertyDTO.class);
-                    if (property.getDocument() != null) {
-                        getPropertyDTO.setOwnershipDocument(property.getDocument().getFilename());
-                    }
-                    return getPropertyDTO;
-                })
+        if (!userRepository.existsByEmail(email)) {
+            throw new UserNotFoundException("User not found with email: " + email);
+        }
+        return propertyRepository.findViewsByOwnerEmailAndStatus(email, PropertyStatus.VERIFIED).stream()
+                .map(propertyMapper::toGetPropertyDTO)
                 .toList();
     }
 
     @Override
     public PropertyDTO getPropertyById(UUID id) {
-        Optional<User> requestMaker = userRepository.findByEmail(getAuthenticatedUserEmail(true));
-        Property property = propertyRepository.findById(id).orElseThrow(PropertyNotFoundException::new);
-        if (!property.getStatus().equals(PropertyStatus.VERIFIED)) {
+        PropertyView property = propertyRepository.findViewById(id).orElseThrow(PropertyNotFoundException::new);
+        if (property.status() != PropertyStatus.VERIFIED) {
             throw new PropertyNotVerifiedException();
         }
-        if (requestMaker.isPresent()) {
-            LOGGER.info("User found with email: {}", requestMaker.get().getEmail());
-            User user = requestMaker.get();
-            if (user.getVerificationStatus() == UserVerificationStatus.VERIFIED && user.getAccountStatus() == UserAccountStatus.ACTIVE) {
-                LOGGER.info("User is verified and active, showing phone number");
-                return convertToDTO(property, true);
-            }
-        }
-        return convertToDTO(property, false);
+        return propertyMapper.toPropertyDTO(property, canSeeOwnerContact());
     }
 
     @Override
@@ -189,6 +280,8 @@ public class PropertyServiceImpl implements PropertyService {
     @Override
     @Transactional
     public void deleteProperty(UUID id) {
+        propertyRepository.findById(id)
+                .ifPresent(property -> applicationEventPublisher.publishEvent(new PropertyDeletionEvent(property)));
         if (isAdmin()) {
             LOGGER.info("Admin user found, deleting property with id: {}", id);
             propertyRepository.deleteById(id);
@@ -207,8 +300,7 @@ public class PropertyServiceImpl implements PropertyService {
                 .filter(property -> property.getStatus() == PropertyStatus.PENDING_REQUEST).toList();
         List<GetPropertyRequestDTO> getPropertyRequestDTOs = new ArrayList<>();
         for (var property : properties) {
-            // Convert the property to a GetPropertyRequestDTO object (modelMapper is a ModelMapper object
-            GetPropertyRequestDTO getPropertyRequestDTO = modelMapper.map(property, GetPropertyRequestDTO.class);
+            GetPropertyRequestDTO getPropertyRequestDTO = propertyMapper.toGetPropertyRequestDTO(property);
             if (property.getDocument() != null) {
                 getPropertyRequestDTO.setOwnershipDocument(property.getDocument().getFilename());
             } else {
@@ -231,28 +323,24 @@ public class PropertyServiceImpl implements PropertyService {
         }
     }
 
+    private boolean canSeeOwnerContact() {
+        Optional<User> requestMaker = userRepository.findByEmail(getAuthenticatedUserEmail(true));
+        if (requestMaker.isPresent()) {
+            LOGGER.info("User found with email: {}", requestMaker.get().getEmail());
+            User user = requestMaker.get();
+            if (user.getVerificationStatus() == UserVerificationStatus.VERIFIED && user.getAccountStatus() == UserAccountStatus.ACTIVE) {
+                LOGGER.info("User is verified and active, showing phone number");
+                return true;
+            }
+        }
+        return false;
+    }
+
     private boolean isAdmin() {
         List userDetails = (List) SecurityContextHolder.getContext().getAuthentication().getAuthorities();
         return userDetails.get(0).toString().equals("ROLE_ADMIN");
     }
 
-    private PropertyDTO convertToDTO(Property property, boolean includeOwner) {
-        PropertyDTO propertyDTO = modelMapper.map(property, PropertyDTO.class);
-        User owner = property.getOwner();
-        // Check if the owner is null
-        if (owner != null) {
-            // Check if the phone number should be included
-            if (!includeOwner) {
-                // Set the phone number to null
-                propertyDTO.setOwner(null);
-                return propertyDTO;
-            }
-            UserDTO ownerDTO = modelMapper.map(owner, UserDTO.class);
-            propertyDTO.setOwner(ownerDTO);
-        }
-        return propertyDTO;
-    }
-
     @EventListener
     public void handlePropertyRejectionEvent(PropertyRejectionEvent event) {
         Property property = event.getProperty();
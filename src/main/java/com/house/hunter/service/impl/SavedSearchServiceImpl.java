@@ -0,0 +1,179 @@
+package com.house.hunter.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.house.hunter.constant.UserAccountStatus;
+import com.house.hunter.event.PropertyVerificationEvent;
+import com.house.hunter.exception.IllegalAccessRequestException;
+import com.house.hunter.exception.IllegalRequestException;
+import com.house.hunter.exception.SavedSearchNotFoundException;
+import com.house.hunter.exception.UserNotFoundException;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import com.house.hunter.model.dto.search.CreateSavedSearchDTO;
+import com.house.hunter.model.dto.search.SavedSearchDTO;
+import com.house.hunter.model.entity.Property;
+import com.house.hunter.model.entity.SavedSearch;
+import com.house.hunter.model.entity.User;
+import com.house.hunter.repository.SavedSearchRepository;
+import com.house.hunter.repository.UserRepository;
+import com.house.hunter.search.PropertyFilter;
+import com.house.hunter.search.PropertyRow;
+import com.house.hunter.search.SavedSearchPercolator;
+import com.house.hunter.security.CustomUserDetails;
+import com.house.hunter.service.EmailService;
+import com.house.hunter.service.SavedSearchService;
+import com.house.hunter.util.MailUtil;
+import jakarta.annotation.PreDestroy;
+import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class SavedSearchServiceImpl implements SavedSearchService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SavedSearchServiceImpl.class);
+    // Candidates are loaded in chunks to keep the IN list bounded
+    private static final int LOAD_BATCH_SIZE = 500;
+    private static final int ALERT_QUEUE_CAPACITY = 1000;
+
+    private final SavedSearchRepository savedSearchRepository;
+    private final UserRepository userRepository;
+    private final SavedSearchPercolator savedSearchPercolator;
+    private final EmailService emailService;
+    private final ObjectMapper objectMapper;
+    private final int maxSavedSearchesPerUser;
+    // Async is not enabled, alerts are matched and mailed here so that verifying a property does not wait for them.
+    // When the queue is full the verifying thread runs the alert itself instead of dropping it.
+    private final ThreadPoolExecutor alertExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(ALERT_QUEUE_CAPACITY), runnable -> {
+        Thread thread = new Thread(runnable, "saved-search-alerts");
+        thread.setDaemon(true);
+        return thread;
+    }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    public SavedSearchServiceImpl(SavedSearchRepository savedSearchRepository, UserRepository userRepository,
+                                  SavedSearchPercolator savedSearchPercolator, EmailService emailService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${saved-search.max-per-user}") int maxSavedSearchesPerUser) {
+        this.savedSearchRepository = savedSearchRepository;
+        this.userRepository = userRepository;
+        this.savedSearchPercolator = savedSearchPercolator;
+        this.emailService = emailService;
+        this.objectMapper = objectMapper;
+        this.maxSavedSearchesPerUser = maxSavedSearchesPerUser;
+    }
+
+    @Override
+    @Transactional
+    public UUID createSavedSearch(CreateSavedSearchDTO createSavedSearchDTO) {
+        String email = getAuthenticatedUserEmail();
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
+        if (savedSearchRepository.countByUserEmail(email) >= maxSavedSearchesPerUser) {
+            throw new IllegalRequestException("A user can have at most " + maxSavedSearchesPerUser + " saved searches");
+        }
+        PropertySearchCriteriaDTO criteria = createSavedSearchDTO.getCriteria();
+        // Alerts are about new listings of any owner, these filters only make sense for a one-off search
+        criteria.setCreatedAt(null);
+        criteria.setOwnerEmail(null);
+        criteria.setStatus(null);
+        try {
+            PropertyFilter.of(criteria);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalRequestException("Invalid search criteria: " + e.getMessage());
+        }
+        SavedSearch savedSearch = new SavedSearch(null, user, createSavedSearchDTO.getName(), writeCriteria(criteria),
+                LocalDateTime.now());
+        savedSearchRepository.save(savedSearch);
+        savedSearchPercolator.add(savedSearch.getId(), criteria);
+        LOGGER.info("User {} saved search {}", email, savedSearch.getId());
+        return savedSearch.getId();
+    }
+
+    @Override
+    public List<SavedSearchDTO> getSavedSearches() {
+        return savedSearchRepository.findByUserEmailOrderByCreatedAtDesc(getAuthenticatedUserEmail()).stream()
+                .map(savedSearch -> new SavedSearchDTO(savedSearch.getId(), savedSearch.getName(),
+                        savedSearchPercolator.readCriteria(savedSearch.getCriteria()), savedSearch.getCreatedAt()))
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public void deleteSavedSearch(UUID id) {
+        SavedSearch savedSearch = savedSearchRepository.findByIdAndUserEmail(id, getAuthenticatedUserEmail())
+                .orElseThrow(SavedSearchNotFoundException::new);
+        savedSearchRepository.delete(savedSearch);
+        savedSearchPercolator.remove(id);
+    }
+
+    @TransactionalEventListener
+    public void handlePropertyVerificationEvent(PropertyVerificationEvent event) {
+        Property property = event.getProperty();
+        PropertyRow row = PropertyRow.of(property);
+        String ownerEmail = property.getOwner().getEmail();
+        alertExecutor.execute(() -> sendAlerts(row, ownerEmail));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        alertExecutor.shutdown();
+    }
+
+    // The percolator narrows the saved searches down to candidates, each candidate is checked exactly and every user
+    // gets a single mail per property listing the names of the matching searches
+    private void sendAlerts(PropertyRow row, String ownerEmail) {
+        try {
+            List<UUID> candidates = savedSearchPercolator.candidates(row);
+            Map<String, List<String>> matches = new LinkedHashMap<>();
+            for (int from = 0; from < candidates.size(); from += LOAD_BATCH_SIZE) {
+                List<UUID> batch = candidates.subList(from, Math.min(from + LOAD_BATCH_SIZE, candidates.size()));
+                for (SavedSearch savedSearch : savedSearchRepository.findWithUserByIdIn(batch)) {
+                    User user = savedSearch.getUser();
+                    if (user.getEmail().equals(ownerEmail) || user.getAccountStatus() != UserAccountStatus.ACTIVE) {
+                        continue;
+                    }
+                    if (PropertyFilter.of(savedSearchPercolator.readCriteria(savedSearch.getCriteria())).matches(row)) {
+                        matches.computeIfAbsent(user.getEmail(), email -> new ArrayList<>()).add(savedSearch.getName());
+                    }
+                }
+            }
+            matches.forEach((email, searchNames) ->
+                    emailService.sendEmail(MailUtil.buildSavedSearchAlertEmail(email, searchNames, row.title(), row.id())));
+            LOGGER.info("Property {} matched {} of {} candidate saved searches", row.id(),
+                    matches.values().stream().mapToInt(List::size).sum(), candidates.size());
+        } catch (Exception e) {
+            LOGGER.error("Failed to send saved search alerts for property {}", row.id(), e);
+        }
+    }
+
+    private String writeCriteria(PropertySearchCriteriaDTO criteria) {
+        try {
+            return objectMapper.writeValueAsString(criteria);
+        } catch (JsonProcessingException e) {
+            throw new IllegalRequestException("Invalid search criteria");
+        }
+    }
+
+    private String getAuthenticatedUserEmail() {
+        try {
+            CustomUserDetails userDetails = (CustomUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+            return userDetails.getUsername();
+        } catch (Exception e) {
+            throw new IllegalAccessRequestException();
+        }
+    }
+}
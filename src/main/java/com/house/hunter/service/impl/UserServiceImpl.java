@@ -5,6 +5,7 @@ import com.house.hunter.constant.PropertyStatus;
 import com.house.hunter.constant.UserAccountStatus;
 import com.house.hunter.constant.UserRole;
 import com.house.hunter.constant.UserVerificationStatus;
+import com.house.hunter.event.UserAccountChangedEvent;
 import com.house.hunter.event.UserActivationEvent;
 import com.house.hunter.event.UserBlockedEvent;
 import com.house.hunter.event.UserNotVerifiedEvent;
@@ -18,6 +19,8 @@ import com.house.hunter.exception.MailServiceException;
 import com.house.hunter.exception.PropertyNotFoundException;
 import com.house.hunter.exception.UserAlreadyExistsException;
 import com.house.hunter.exception.UserNotFoundException;
+import com.house.hunter.mapper.PropertyMapper;
+import com.house.hunter.mapper.UserMapper;
 import com.house.hunter.model.dto.property.GetPropertyDTO;
 import com.house.hunter.model.dto.user.CreateAdminDTO;
 import com.house.hunter.model.dto.user.GetAllUsersResponse;
@@ -31,15 +34,15 @@ import com.house.hunter.model.entity.User;
 import com.house.hunter.repository.ConfirmationTokenRepository;
 import com.house.hunter.repository.DocumentRepository;
 import com.house.hunter.repository.PropertyRepository;
+import com.house.hunter.repository.RefreshTokenRepository;
 import com.house.hunter.repository.UserRepository;
 import com.house.hunter.service.EmailService;
 import com.house.hunter.service.UserService;
+import com.house.hunter.storage.StoredVersion;
 import com.house.hunter.util.DocumentUtil;
 import com.house.hunter.util.MailUtil;
-import com.house.hunter.util.PasswordEncoder;
 import jakarta.transaction.Transactional;
 import jakarta.validation.Valid;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
@@ -49,6 +52,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.mail.javamail.MimeMessagePreparator;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -67,20 +71,29 @@ public class UserServiceImpl implements UserService {
     private final PropertyRepository propertyRepository;
     private final DocumentRepository documentRepository;
     private final ConfirmationTokenRepository confirmationTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
     private final EmailService emailService;
-    private final ModelMapper modelMapper;
+    private final UserMapper userMapper;
+    private final PropertyMapper propertyMapper;
+    private final PasswordEncoder passwordEncoder;
 
     private final ApplicationEventPublisher applicationEventPublisher;
 
 
-    public UserServiceImpl(UserRepository userRepository, PropertyRepository propertyRepository, DocumentRepository documentRepository, ModelMapper modelMapper,
-                           ConfirmationTokenRepository confirmationTokenRepository, EmailService emailService, ApplicationEventPublisher applicationEventPublisher) {
+    public UserServiceImpl(UserRepository userRepository, PropertyRepository propertyRepository, DocumentRepository documentRepository,
+                           UserMapper userMapper, PropertyMapper propertyMapper,
+                           ConfirmationTokenRepository confirmationTokenRepository, RefreshTokenRepository refreshTokenRepository,
+                           EmailService emailService, PasswordEncoder passwordEncoder,
+                           ApplicationEventPublisher applicationEventPublisher) {
         this.userRepository = userRepository;
         this.documentRepository = documentRepository;
         this.propertyRepository = propertyRepository;
-        this.modelMapper = modelMapper;
+        this.userMapper = userMapper;
+        this.propertyMapper = propertyMapper;
         this.confirmationTokenRepository = confirmationTokenRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
         this.emailService = emailService;
+        this.passwordEncoder = passwordEncoder;
         this.applicationEventPublisher = applicationEventPublisher;
     }
 
@@ -94,11 +107,11 @@ public class UserServiceImpl implements UserService {
         if (userRepository.existsByEmail(userRegistrationDto.getEmail())) {
             throw new UserAlreadyExistsException(userRegistrationDto.getEmail());
         }
-        final User user = modelMapper.map(userRegistrationDto, User.class);
+        final User user = userMapper.toUser(userRegistrationDto);
         user.setVerificationStatus(UserVerificationStatus.PENDING_VERIFICATION);
         user.setAccountStatus(UserAccountStatus.NOT_ACTIVATED);
         // Encrypting the password with automatic salting
-        final String encryptedPassword = PasswordEncoder.getPasswordEncoder().encode(user.getPassword());
+        final String encryptedPassword = passwordEncoder.encode(user.getPassword());
         user.setPassword(encryptedPassword);
         user.setCreatedAt(java.time.LocalDateTime.now());
         userRepository.save(user);
@@ -116,11 +129,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Page<GetAllUsersResponse> getAllUsers(Pageable pageable) {
-        Page users = userRepository.findAll(pageable);
+        Page<User> users = userRepository.findAll(pageable);
         if (users.isEmpty()) {
             throw new UserNotFoundException("No users found");
         }
-        return users.map(user -> modelMapper.map(user, GetAllUsersResponse.class));
+        return users.map(userMapper::toGetAllUsersResponse);
     }
 
     @Override
@@ -138,7 +151,7 @@ public class UserServiceImpl implements UserService {
                             user.setPhoneNumber(null);
                         }
                         user.setProperties(user.getProperties().stream().filter(property -> property.getStatus().equals(PropertyStatus.VERIFIED)).toList());
-                        return modelMapper.map(user, UserGetResponse.class);
+                        return userMapper.toUserGetResponse(user);
                     })
                     .orElseThrow(() -> new UserNotFoundException(email));
         } else {
@@ -151,10 +164,10 @@ public class UserServiceImpl implements UserService {
         return userRepository.findById(uuid)
                 .map(user -> {
                     LOGGER.info("User found: {}", user.getEmail());
-                    UserGetResponse response = modelMapper.map(user, UserGetResponse.class);
+                    UserGetResponse response = userMapper.toUserGetResponse(user);
                     List<Property> properties = new ArrayList<>(user.getProperties().stream().filter(property -> property.getStatus().equals(PropertyStatus.VERIFIED)).toList());
                     List<GetPropertyDTO> propertyDTOs = properties.stream()
-                            .map(property -> modelMapper.map(property, GetPropertyDTO.class))
+                            .map(propertyMapper::toGetPropertyDTO)
                             .toList();
                     response.setProperties(propertyDTOs);
                     return response;
@@ -188,13 +201,15 @@ public class UserServiceImpl implements UserService {
             final User user = userRepository.findByEmail(email)
                     .orElseThrow(() -> new UserNotFoundException(email));
             LOGGER.info("User found: {}", email);
-            if (!PasswordEncoder.getPasswordEncoder().matches(oldPassword, user.getPassword())) {
+            if (!passwordEncoder.matches(oldPassword, user.getPassword())) {
                 throw new IllegalRequestException("Old password is incorrect");
             }
-            final String encryptedPassword = PasswordEncoder.getPasswordEncoder().encode(newPassword);
+            final String encryptedPassword = passwordEncoder.encode(newPassword);
             user.setPassword(encryptedPassword);
+            revokeTokens(user);
             LOGGER.info("Password has been updated for user : {}", user.getEmail());
             userRepository.save(user);
+            applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
         } else {
             throw new IllegalRequestException("You are not authorized to update this user's password");
         }
@@ -214,6 +229,7 @@ public class UserServiceImpl implements UserService {
         if (hasRole(authentication, UserRole.ADMIN) || currentUserEmail.equals(email)) {
             userRepository.delete(user);
             LOGGER.info("User deleted: {}", user.getEmail());
+            applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
         } else {
             throw new IllegalRequestException("You are not authorized to delete this user");
         }
@@ -240,6 +256,13 @@ public class UserServiceImpl implements UserService {
 
     }
 
+    @Override
+    public StoredVersion getDocumentVersion(String filename) {
+        Document document = documentRepository.findByFilename(filename)
+                .orElseThrow(() -> new DocumentNotFoundException(filename));
+        return StoredVersion.of(document.getFilename(), document.getContentHash(), null, document.getCreatedAt(), true);
+    }
+
     @Override
     @Transactional
     public UUID uploadDocument(String documentType, MultipartFile file) throws IOException {
@@ -247,25 +270,30 @@ public class UserServiceImpl implements UserService {
             throw new InvalidDocumentTypeException();
         }
         User user = getAuthenticatedUser();
+        DocumentUtil.StoredDocument storedDocument = null;
         try {
-            String documentName = documentUtil.saveDocumentToStorage(file);
-
             // Check if a document with the same user and documentType already exists
             Optional<Document> existingDocument = documentRepository.findByUserAndDocumentType(user, DocumentType.valueOf(documentType));
+            // The document it replaces may have the same content
+            storedDocument = storeDocument(file, existingDocument.map(Document::getId).orElse(null));
 
             if (existingDocument.isPresent()) {
                 LOGGER.info("Document already exists for user: {}", user.getEmail());
                 // If the document exists, update its filename and save it
                 Document document = existingDocument.get();
-                document.setFilename(documentName);
+                document.setFilename(storedDocument.filename());
+                document.setContentHash(storedDocument.contentHash());
                 return documentRepository.save(document).getId();
             } else {
                 // If the document doesn't exist, create a new one and save it
-                Document document = new Document(null, documentName, DocumentType.valueOf(documentType), LocalDateTime.now(), user, null);
+                Document document = new Document(null, storedDocument.filename(), storedDocument.contentHash(),
+                        DocumentType.valueOf(documentType), LocalDateTime.now(), user, null);
                 return documentRepository.save(document).getId();
             }
         } catch (Exception e) {
-            documentUtil.deleteDocument(file.getOriginalFilename());
+            if (storedDocument != null) {
+                documentUtil.deleteDocument(storedDocument.filename());
+            }
             throw new FileOperationException(e.getMessage());
         }
     }
@@ -287,8 +315,10 @@ public class UserServiceImpl implements UserService {
                     .orElse(new Document());
             // if it is a new document, save it
             if (document.getId() == null) {
-                documentName = documentUtil.saveDocumentToStorage(file);
+                DocumentUtil.StoredDocument storedDocument = storeDocument(file, null);
+                documentName = storedDocument.filename();
                 document.setFilename(documentName);
+                document.setContentHash(storedDocument.contentHash());
                 document.setDocumentType(DocumentType.OWNERSHIP_DOCUMENT);
                 document.setCreatedAt(LocalDateTime.now());
                 document.setUser(user);
@@ -296,9 +326,11 @@ public class UserServiceImpl implements UserService {
             } else {
                 // if the document already exists, update it
                 documentUtil.deleteDocument(document.getFilename());
-                // Save the new document
-                documentName = documentUtil.saveDocumentToStorage(file);
+                // Save the new document, it may have the same content as the one it replaces
+                DocumentUtil.StoredDocument storedDocument = storeDocument(file, document.getId());
+                documentName = storedDocument.filename();
                 document.setFilename(documentName);
+                document.setContentHash(storedDocument.contentHash());
             }
             Document savedDocument = documentRepository.save(document);
             return savedDocument.getId();
@@ -336,6 +368,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findByEmail(email).orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
         user.setVerificationStatus(UserVerificationStatus.VERIFIED);
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -346,6 +379,7 @@ public class UserServiceImpl implements UserService {
         LOGGER.info("User account activated: {}", user.getEmail());
         applicationEventPublisher.publishEvent(new UserActivationEvent(user));
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -354,13 +388,13 @@ public class UserServiceImpl implements UserService {
         if (userRepository.existsByEmail(createAdminDTO.getEmail())) {
             throw new UserAlreadyExistsException(createAdminDTO.getEmail());
         }
-        final User user = modelMapper.map(createAdminDTO, User.class);
+        final User user = userMapper.toUser(createAdminDTO);
         user.setRole(UserRole.ADMIN);
         user.setVerificationStatus(UserVerificationStatus.VERIFIED);
         user.setAccountStatus(UserAccountStatus.ACTIVE);
         user.setCreatedAt(java.time.LocalDateTime.now());
         // Encrypting the password with automatic salting
-        final String encryptedPassword = PasswordEncoder.getPasswordEncoder().encode(user.getPassword());
+        final String encryptedPassword = passwordEncoder.encode(user.getPassword());
         user.setPassword(encryptedPassword);
         userRepository.save(user);
         LOGGER.info("Admin user created: {}", user.getEmail());
@@ -384,6 +418,7 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException("User not found with email: " + token.getUser().getEmail()));
         user.setAccountStatus(UserAccountStatus.ACTIVE);
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -409,10 +444,12 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new InvalidTokenException("Invalid reset password token : " + resetToken));
 
         // Update the user's password
-        user.setPassword(PasswordEncoder.getPasswordEncoder().encode(newPassword));
+        user.setPassword(passwordEncoder.encode(newPassword));
+        revokeTokens(user);
         LOGGER.info("Password reset for user: {}", user.getEmail());
         user.setResetPasswordToken(null);
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -426,8 +463,10 @@ public class UserServiceImpl implements UserService {
             throw new IllegalRequestException("Admin user cannot be blocked");
         }
         user.setAccountStatus(UserAccountStatus.BLOCKED);
+        revokeTokens(user);
         applicationEventPublisher.publishEvent(new UserBlockedEvent(user));
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
         LOGGER.info("User account blocked: {}", user.getEmail());
     }
 
@@ -440,6 +479,7 @@ public class UserServiceImpl implements UserService {
         user.setVerificationStatus(UserVerificationStatus.NOT_VERIFIED);
         applicationEventPublisher.publishEvent(new UserNotVerifiedEvent(user));
         userRepository.save(user);
+        applicationEventPublisher.publishEvent(new UserAccountChangedEvent(user.getEmail()));
     }
 
     @Override
@@ -473,6 +513,27 @@ public class UserServiceImpl implements UserService {
     }
 
 
+    // The content hash is computed while the upload is written, a document already on file is rejected with a lookup
+    private DocumentUtil.StoredDocument storeDocument(MultipartFile file, UUID replacedDocumentId) throws IOException {
+        DocumentUtil.StoredDocument storedDocument = documentUtil.saveDocumentToStorage(file);
+        Optional<Document> duplicate = documentRepository.findFirstByContentHash(storedDocument.contentHash());
+        if (duplicate.isPresent() && !duplicate.get().getId().equals(replacedDocumentId)) {
+            documentUtil.deleteDocument(storedDocument.filename());
+            throw new IllegalArgumentException("Document with the same data already exists");
+        }
+        return storedDocument;
+    }
+
+    // Raises the revocation epoch, every access token issued so far is rejected once the user is saved and the cached
+    // principals are evicted. The refresh token goes as well, it would hand out tokens of the new epoch.
+    private void revokeTokens(User user) {
+        user.setTokenEpoch(user.getTokenEpoch() == null ? 1 : user.getTokenEpoch() + 1);
+        refreshTokenRepository.findByUser(user).ifPresent(refreshToken -> {
+            user.setRefreshToken(null);
+            refreshTokenRepository.delete(refreshToken);
+        });
+    }
+
     private User getAuthenticatedUser() {
         return userRepository.findByEmail(SecurityContextHolder.getContext().getAuthentication().getName())
                 .orElseThrow(() -> new UserNotFoundException("User can not be gotten from the authorization token " + SecurityContextHolder.getContext().getAuthentication().getName()));
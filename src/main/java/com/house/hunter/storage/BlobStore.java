@@ -0,0 +1,387 @@
+package com.house.hunter.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Haystack style store for small files. Blobs are appended to segment files of up to segmentSize bytes and located
+// through an in-memory index, a read is a single positional read of an open segment and a listing page costs no
+// open/stat per image. The index is kept as an append-only log of put and delete records next to the segments and is
+// replayed on startup. Deleted blobs leave garbage in their segment until compaction copies the live blobs of the
+// segment to the active one, a compacted segment is deleted by the next compaction so that reads and responses still
+// using it can finish. The index log is rewritten to the live entries at the end of every compaction.
+public class BlobStore implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobStore.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String INDEX_FILE = "index.log";
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // Open segments, positional reads of a FileChannel may run concurrently
+    private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+    // Bytes of deleted or moved blobs per segment, guarded by the store
+    private final Map<Integer, Long> garbage = new HashMap<>();
+    // Compacted segments waiting to be deleted
+    private final Set<Integer> retired = new HashSet<>();
+    private DataOutputStream indexLog;
+    private int activeSegment;
+
+    public BlobStore(Path directory, long segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        replayIndex();
+        openSegments();
+        indexLog = openIndexLog();
+    }
+
+    public Location locate(String name) {
+        return index.get(name);
+    }
+
+    public FileRegion region(String name) {
+        Location location = index.get(name);
+        return location == null ? null : new FileRegion(segmentPath(location.segment()), location.offset(),
+                location.length(), name);
+    }
+
+    // Reads the blob with positional reads of its open segment, null when there is no blob under the name
+    public byte[] read(String name) throws IOException {
+        Location location = index.get(name);
+        if (location == null) {
+            return null;
+        }
+        FileChannel channel = segments.get(location.segment());
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(location.length()));
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel == null || channel.read(buffer, location.offset() + buffer.position()) < 0) {
+                    throw new ClosedChannelException();
+                }
+            }
+        } catch (ClosedChannelException e) {
+            // The segment was deleted by a compaction after the blob had been moved out of it
+            return index.get(name) == location ? null : read(name);
+        }
+        return buffer.array();
+    }
+
+    public Set<String> names() {
+        return Set.copyOf(index.keySet());
+    }
+
+    // Appends the file under the name. A name is only stored once, the files stored under it have the same content.
+    // Storing it again only renews storedAt, the new upload gets the full grace period before its row has to exist.
+    public synchronized Location put(String name, Path source) throws IOException {
+        Location existing = renew(name);
+        if (existing != null) {
+            return existing;
+        }
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ)) {
+            Location location = append(input, 0, input.size(), System.currentTimeMillis());
+            // The bytes are on disk before the index points at them
+            segments.get(location.segment()).force(false);
+            writeRecord(PUT, name, location);
+            index.put(name, location);
+            return location;
+        }
+    }
+
+    // Sets storedAt of the blob to now, null when nothing is stored under the name
+    public synchronized Location renew(String name) throws IOException {
+        Location existing = index.get(name);
+        if (existing == null) {
+            return null;
+        }
+        Location renewed = new Location(existing.segment(), existing.offset(), existing.length(),
+                System.currentTimeMillis());
+        writeRecord(PUT, name, renewed);
+        index.put(name, renewed);
+        return renewed;
+    }
+
+    public synchronized boolean delete(String name) throws IOException {
+        Location location = index.remove(name);
+        if (location == null) {
+            return false;
+        }
+        writeRecord(DELETE, name, null);
+        garbage.merge(location.segment(), location.length(), Long::sum);
+        return true;
+    }
+
+    // Copies the live blobs of the sealed segments holding at least minGarbageRatio garbage to the active segment and
+    // retires the segments, returns the number of bytes reclaimed
+    public long compact(double minGarbageRatio) throws IOException {
+        deleteRetiredSegments();
+        List<Integer> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (Map.Entry<Integer, Long> entry : garbage.entrySet()) {
+                int segment = entry.getKey();
+                if (segment != activeSegment && !retired.contains(segment)
+                        && entry.getValue() >= minGarbageRatio * segments.get(segment).size()) {
+                    candidates.add(segment);
+                }
+            }
+        }
+        long reclaimed = 0;
+        for (int segment : candidates) {
+            reclaimed += compactSegment(segment);
+        }
+        if (!candidates.isEmpty()) {
+            rewriteIndex();
+        }
+        return reclaimed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexLog.close();
+        for (FileChannel channel : segments.values()) {
+            channel.close();
+        }
+    }
+
+    // Blobs are moved one at a time, uploads only wait for the copy of a single blob
+    private long compactSegment(int segment) throws IOException {
+        FileChannel source = segments.get(segment);
+        long reclaimed = source.size();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            if (entry.getValue().segment() != segment) {
+                continue;
+            }
+            synchronized (this) {
+                Location location = index.get(entry.getKey());
+                if (location == null || location.segment() != segment) {
+                    continue;
+                }
+                Location moved = append(source, location.offset(), location.length(), location.storedAt());
+                reclaimed -= location.length();
+                segments.get(moved.segment()).force(false);
+                writeRecord(PUT, entry.getKey(), moved);
+                index.put(entry.getKey(), moved);
+            }
+        }
+        synchronized (this) {
+            garbage.remove(segment);
+            retired.add(segment);
+        }
+        LOGGER.info("Compacted blob segment {}, {} bytes reclaimed", segment, reclaimed);
+        return reclaimed;
+    }
+
+    private synchronized void deleteRetiredSegments() throws IOException {
+        for (int segment : retired) {
+            FileChannel channel = segments.remove(segment);
+            if (channel != null) {
+                channel.close();
+            }
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        retired.clear();
+    }
+
+    // Writes the live entries to a new index log and swaps it in
+    private synchronized void rewriteIndex() throws IOException {
+        Path temporary = directory.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            for (Map.Entry<String, Location> entry : index.entrySet()) {
+                writeRecord(output, PUT, entry.getKey(), entry.getValue());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        indexLog.close();
+        Files.move(temporary, directory.resolve(INDEX_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        indexLog = openIndexLog();
+    }
+
+    private Location append(FileChannel input, long position, long length, long storedAt) throws IOException {
+        FileChannel target = segments.get(activeSegment);
+        if (target.size() > 0 && target.size() + length > segmentSize) {
+            activeSegment++;
+            target = openSegment(activeSegment);
+        }
+        long offset = target.size();
+        // transferFrom reads from the current position of the input
+        input.position(position);
+        long copied = 0;
+        while (copied < length) {
+            long transferred = target.transferFrom(input, offset + copied, length - copied);
+            if (transferred <= 0) {
+                throw new IOException("Source ended after " + copied + " of " + length + " bytes");
+            }
+            copied += transferred;
+        }
+        return new Location(activeSegment, offset, length, storedAt);
+    }
+
+    private void replayIndex() throws IOException {
+        Path indexPath = directory.resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        long validLength = 0;
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(indexPath)));
+             DataInputStream input = new DataInputStream(counter)) {
+            while (true) {
+                byte type = input.readByte();
+                String name = input.readUTF();
+                if (type == PUT) {
+                    index.put(name, new Location(input.readInt(), input.readLong(), input.readLong(), input.readLong()));
+                } else {
+                    index.remove(name);
+                }
+                validLength = counter.count;
+            }
+        } catch (EOFException e) {
+            // End of the log, or a record cut short by a crash which is dropped below
+        }
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                LOGGER.warn("Dropping a truncated record at the end of the blob index");
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    // Opens the segments the index refers to and computes their garbage, segments without live blobs are deleted
+    private void openSegments() throws IOException {
+        Map<Integer, Long> liveBytes = new HashMap<>();
+        index.values().forEach(location -> liveBytes.merge(location.segment(), location.length(), Long::sum));
+        int lastSegment = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String filename = file.getFileName().toString();
+                int segment = Integer.parseInt(filename.substring(SEGMENT_PREFIX.length(),
+                        filename.length() - SEGMENT_SUFFIX.length()));
+                lastSegment = Math.max(lastSegment, segment);
+            }
+        }
+        for (int segment = 0; segment <= lastSegment; segment++) {
+            Path path = segmentPath(segment);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            if (!liveBytes.containsKey(segment) && segment != lastSegment) {
+                Files.delete(path);
+                continue;
+            }
+            FileChannel channel = openSegment(segment);
+            long garbageBytes = channel.size() - liveBytes.getOrDefault(segment, 0L);
+            if (garbageBytes > 0) {
+                garbage.put(segment, garbageBytes);
+            }
+        }
+        activeSegment = lastSegment;
+        if (!segments.containsKey(activeSegment)) {
+            openSegment(activeSegment);
+        }
+        // Entries pointing past the end of their segment were logged without their bytes reaching the disk
+        index.entrySet().removeIf(entry -> {
+            FileChannel channel = segments.get(entry.getValue().segment());
+            try {
+                return channel == null || entry.getValue().offset() + entry.getValue().length() > channel.size();
+            } catch (IOException e) {
+                return true;
+            }
+        });
+    }
+
+    private FileChannel openSegment(int segment) throws IOException {
+        FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segments.put(segment, channel);
+        return channel;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private DataOutputStream openIndexLog() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    private void writeRecord(byte type, String name, Location location) throws IOException {
+        writeRecord(indexLog, type, name, location);
+        indexLog.flush();
+    }
+
+    private static void writeRecord(DataOutputStream output, byte type, String name, Location location) throws IOException {
+        output.writeByte(type);
+        output.writeUTF(name);
+        if (type == PUT) {
+            output.writeInt(location.segment());
+            output.writeLong(location.offset());
+            output.writeLong(location.length());
+            output.writeLong(location.storedAt());
+        }
+    }
+
+    // Where a blob lies, storedAt is the time it was last stored in epoch milliseconds
+    public record Location(int segment, long offset, long length, long storedAt) {
+    }
+
+    private static final class CountingInputStream extends InputStream {
+        private final InputStream input;
+        private long count;
+
+        private CountingInputStream(InputStream input) {
+            this.input = input;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = input.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = input.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.house.hunter.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Bytes of a stored file, either a whole file or a blob packed into a segment of the blob store. The name gives the
+// content type.
+public record FileRegion(Path file, long offset, long length, String name) {
+
+    public static FileRegion of(Path file) throws IOException {
+        return new FileRegion(file, 0, Files.size(file), file.getFileName().toString());
+    }
+
+    // Key of a whole file for ImageCache.evict, which ignores the length
+    public static FileRegion key(Path file) {
+        return new FileRegion(file, 0, 0, file.getFileName().toString());
+    }
+
+    public byte[] readAllBytes() throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Too large to be read into memory: " + name);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Unexpected end of " + file + " while reading " + name);
+                }
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,274 @@
+package com.house.hunter.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// LRU cache of image files and blobs outside the Java heap. Memory is allocated as direct buffer slabs that are cut into fixed
+// size blocks, a file occupies the blocks it needs in any order, so evicting one file always makes room for another of
+// the same size. Readers hold a lease on an entry, an entry evicted during a read gives its blocks back when the last
+// lease is closed.
+@Component
+public class ImageCache {
+    private static final int BLOCK_SIZE = 8 * 1024;
+    private static final int SLAB_SIZE = 1024 * 1024;
+    private static final int BLOCKS_PER_SLAB = SLAB_SIZE / BLOCK_SIZE;
+
+    private final int maxSlabs;
+    private final long maxEntrySize;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] freeBlocks = new int[BLOCKS_PER_SLAB];
+    private int freeCount;
+    // Access ordered, the eldest entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ImageCache(@Value("${image.cache.capacity}") long capacity,
+                      @Value("${image.cache.max-entry-size}") long maxEntrySize,
+                      MeterRegistry meterRegistry) {
+        this.maxSlabs = (int) Math.max(1, capacity / SLAB_SIZE);
+        this.maxEntrySize = Math.min(maxEntrySize, (long) maxSlabs * SLAB_SIZE);
+        this.hits = Counter.builder("image.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("image.cache.requests").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("image.cache.evictions").register(meterRegistry);
+        Gauge.builder("image.cache.size", this, ImageCache::cachedBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("image.cache.entries", this, ImageCache::entryCount).register(meterRegistry);
+        Gauge.builder("image.cache.capacity", this, cache -> (double) cache.maxSlabs * SLAB_SIZE).baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Lease on the cached bytes of the region, read from disk on a miss. Null when the region is larger than an entry
+    // may be or every block is held by a lease. The lease has to be closed.
+    public Lease lease(FileRegion region) throws IOException {
+        Key key = key(region);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.length == region.length()) {
+                hits.increment();
+                entry.leases++;
+                return new Lease(entry);
+            }
+            if (entry != null) {
+                // The file was rewritten with another length
+                entries.remove(key);
+                remove(entry);
+            }
+        }
+        misses.increment();
+        long size = region.length();
+        if (size > maxEntrySize) {
+            return null;
+        }
+        int[] blocks = allocate((int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE));
+        if (blocks == null) {
+            return null;
+        }
+        Entry loaded = new Entry(blocks, (int) size);
+        try {
+            load(region, loaded);
+        } catch (IOException | RuntimeException e) {
+            release(blocks);
+            throw e;
+        }
+        synchronized (this) {
+            // Another reader may have loaded the same file meanwhile
+            Entry entry = entries.get(key);
+            if (entry != null && entry.length == loaded.length) {
+                release(blocks);
+            } else {
+                if (entry != null) {
+                    remove(entry);
+                }
+                entry = loaded;
+                entries.put(key, entry);
+                cachedBytes += entry.length;
+            }
+            entry.leases++;
+            return new Lease(entry);
+        }
+    }
+
+    public byte[] read(FileRegion region) throws IOException {
+        try (Lease lease = lease(region)) {
+            return lease != null ? lease.toByteArray() : region.readAllBytes();
+        }
+    }
+
+    // Has to be called when a file or blob is deleted or rewritten, the length of the region is not compared
+    public synchronized void evict(FileRegion region) {
+        Entry entry = entries.remove(key(region));
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public synchronized long cachedBytes() {
+        return cachedBytes;
+    }
+
+    public synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private static Key key(FileRegion region) {
+        return new Key(region.file().toAbsolutePath().normalize(), region.offset());
+    }
+
+    // Takes free blocks, carves a new slab while the capacity allows and evicts the least recently used entries
+    // otherwise. Entries under a lease are evicted as well but only return their blocks later.
+    private synchronized int[] allocate(int count) {
+        while (freeCount < count && slabs.size() < maxSlabs) {
+            addSlab();
+        }
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (freeCount < count && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            remove(entry);
+            evictions.increment();
+        }
+        if (freeCount < count) {
+            return null;
+        }
+        freeCount -= count;
+        return Arrays.copyOfRange(freeBlocks, freeCount, freeCount + count);
+    }
+
+    private void addSlab() {
+        int firstBlock = slabs.size() * BLOCKS_PER_SLAB;
+        slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+        // Every block can be free at once, blocks held by entries are released into the same array
+        if (freeBlocks.length < slabs.size() * BLOCKS_PER_SLAB) {
+            freeBlocks = Arrays.copyOf(freeBlocks, slabs.size() * BLOCKS_PER_SLAB);
+        }
+        for (int block = firstBlock + BLOCKS_PER_SLAB - 1; block >= firstBlock; block--) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    private void remove(Entry entry) {
+        cachedBytes -= entry.length;
+        entry.removed = true;
+        if (entry.leases == 0) {
+            release(entry.blocks);
+        }
+    }
+
+    private synchronized void release(int[] blocks) {
+        for (int block : blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    private synchronized void close(Entry entry) {
+        entry.leases--;
+        if (entry.removed && entry.leases == 0) {
+            release(entry.blocks);
+        }
+    }
+
+    private void load(FileRegion region, Entry entry) throws IOException {
+        try (FileChannel channel = FileChannel.open(region.file(), StandardOpenOption.READ)) {
+            long position = region.offset();
+            for (int i = 0; i < entry.blocks.length; i++) {
+                ByteBuffer block = block(entry.blocks[i], blockLength(entry, i));
+                while (block.hasRemaining()) {
+                    if (channel.read(block, position + block.position()) < 0) {
+                        throw new IOException("File shrank while it was cached: " + region.file());
+                    }
+                }
+                position += block.capacity();
+            }
+        }
+    }
+
+    // Independent view of a block, the slab itself is never repositioned so views can be used concurrently
+    private ByteBuffer block(int block, int length) {
+        ByteBuffer slab;
+        synchronized (this) {
+            slab = slabs.get(block / BLOCKS_PER_SLAB);
+        }
+        return slab.slice((block % BLOCKS_PER_SLAB) * BLOCK_SIZE, length);
+    }
+
+    private static int blockLength(Entry entry, int index) {
+        return Math.min(BLOCK_SIZE, entry.length - index * BLOCK_SIZE);
+    }
+
+    private record Key(Path file, long offset) {
+    }
+
+    private static final class Entry {
+        private final int[] blocks;
+        private final int length;
+        private int leases;
+        private boolean removed;
+
+        private Entry(int[] blocks, int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+    }
+
+    public final class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public long length() {
+            return entry.length;
+        }
+
+        // Writes count bytes starting at position, the bytes go from the direct buffers to the channel
+        public void transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            long end = position + count;
+            for (int i = (int) (position / BLOCK_SIZE); i < entry.blocks.length && position < end; i++) {
+                int offset = (int) (position - (long) i * BLOCK_SIZE);
+                int length = (int) Math.min(blockLength(entry, i) - offset, end - position);
+                ByteBuffer block = block(entry.blocks[i], offset + length).position(offset);
+                while (block.hasRemaining()) {
+                    target.write(block);
+                }
+                position += length;
+            }
+        }
+
+        public byte[] toByteArray() {
+            byte[] bytes = new byte[entry.length];
+            for (int i = 0; i < entry.blocks.length; i++) {
+                block(entry.blocks[i], blockLength(entry, i)).get(bytes, i * BLOCK_SIZE, blockLength(entry, i));
+            }
+            return bytes;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                ImageCache.this.close(entry);
+            }
+        }
+    }
+}
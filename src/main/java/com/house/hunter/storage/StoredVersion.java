@@ -0,0 +1,27 @@
+package com.house.hunter.storage;
+
+import com.house.hunter.constant.ImageSize;
+import com.house.hunter.util.ContentHash;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+// Validators of a stored file taken from its row, so that a conditional request is answered without the disk. The size
+// is the rendition that is served, null for the original. Immutable versions never change under their URL.
+public record StoredVersion(String filename, ImageSize size, String eTag, long lastModified, boolean immutable) {
+
+    // Strong entity tag from the content hash, or from the filename for files stored before the hash was recorded.
+    // Stored files are never rewritten in place, so either identifies the bytes.
+    public static StoredVersion of(String filename, String contentHash, ImageSize size, LocalDateTime createdAt,
+                                   boolean immutable) {
+        String tag = contentHash != null ? contentHash : ContentHash.of(filename.getBytes(StandardCharsets.UTF_8));
+        if (size != null) {
+            tag += "-" + size.name().toLowerCase();
+        }
+        // The date does not change when a mutable version does, only the entity tag can validate it
+        long lastModified = createdAt == null || !immutable ? -1
+                : createdAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new StoredVersion(filename, size, "\"" + tag + "\"", lastModified, immutable);
+    }
+}
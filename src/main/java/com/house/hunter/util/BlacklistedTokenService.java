@@ -1,30 +1,179 @@
 package com.house.hunter.util;
 
 import com.house.hunter.model.pojo.BlacklistedToken;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.Cursor;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+
+// Revoked tokens are kept in Redis, with a Bloom filter of their SHA-256 in front so the lookup of a token that was
+// never revoked does not leave the process. Every revocation is published to the other instances, and the filter is
+// rebuilt from Redis on startup and resynchronized periodically in case a message was missed. The filter has two
+// generations rotated every access token lifetime, a revoked token stays in it until it has surely expired.
 @Component
-@AllArgsConstructor
-public class BlacklistedTokenService {
+public class BlacklistedTokenService implements MessageListener {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlacklistedTokenService.class);
+    static final String REVOCATION_CHANNEL = "token:blacklist:revoked";
+    // Hashes of the revoked tokens scored by their expiry, the filter is rebuilt from it
+    static final String INDEX_KEY = "token:blacklist:index";
+    // Tokens are stored under the token itself, a JWT always starts with the encoded {"
+    private static final String TOKEN_KEY_PATTERN = "eyJ*";
+
     private final RedisTemplate<String, BlacklistedToken> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Counter filterNegatives;
+    private final Counter filterFalsePositives;
+
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    // Lookups go to Redis until the filter has been built from it
+    private volatile boolean filterReady;
+
+    public BlacklistedTokenService(RedisTemplate<String, BlacklistedToken> redisTemplate,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   RedisMessageListenerContainer listenerContainer, MeterRegistry meterRegistry,
+                                   @Value("${token-blacklist.filter.expected-insertions}") long expectedInsertions,
+                                   @Value("${token-blacklist.filter.false-positive-rate}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.current = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.previous = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.filterNegatives = meterRegistry.counter("token.blacklist.filter.requests", "result", "negative");
+        this.filterFalsePositives = meterRegistry.counter("token.blacklist.filter.requests", "result", "false-positive");
+        listenerContainer.addMessageListener(this, ChannelTopic.of(REVOCATION_CHANNEL));
+    }
 
     public void addToBlacklist(String token, Instant expiryDate) {
         long expiryTimestamp = expiryDate.toEpochMilli();
         BlacklistedToken blacklistedToken = new BlacklistedToken(token, expiryTimestamp);
         redisTemplate.opsForValue().set(token, blacklistedToken, Duration.between(Instant.now(), expiryDate));
+        byte[] hash = hash(token);
+        String hex = HexFormat.of().formatHex(hash);
+        stringRedisTemplate.opsForZSet().add(INDEX_KEY, hex, expiryTimestamp);
+        addToFilter(hash);
+        stringRedisTemplate.convertAndSend(REVOCATION_CHANNEL, hex);
     }
 
     public boolean isBlacklisted(String token) {
+        if (filterReady && !mightBeBlacklisted(hash(token))) {
+            filterNegatives.increment();
+            return false;
+        }
         BlacklistedToken blacklistedToken = redisTemplate.opsForValue().get(token);
         if (blacklistedToken != null) {
             long expiryTimestamp = blacklistedToken.getExpiryTimestamp();
             return Instant.now().isBefore(Instant.ofEpochMilli(expiryTimestamp));
         }
+        if (filterReady) {
+            filterFalsePositives.increment();
+        }
         return false;
     }
-}
 
+    // Also picks up the tokens revoked before the index existed, which are only found by their key
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFilter() {
+        try {
+            int tokens = 0;
+            try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(TOKEN_KEY_PATTERN).count(500).build())) {
+                while (keys.hasNext()) {
+                    addToFilter(hash(keys.next()));
+                    tokens++;
+                }
+            }
+            tokens += synchronizeFilter();
+            filterReady = true;
+            LOGGER.info("Token blacklist filter built from {} revoked tokens", tokens);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not build the token blacklist filter, lookups go to Redis until it is", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${token-blacklist.filter.resync-interval}",
+            initialDelayString = "${token-blacklist.filter.resync-interval}")
+    public void resynchronizeFilter() {
+        try {
+            if (!filterReady) {
+                rebuildFilter();
+            } else {
+                synchronizeFilter();
+            }
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not resynchronize the token blacklist filter", e);
+        }
+    }
+
+    // A token revoked in the current generation stays for at least one more full lifetime in the previous one
+    @Scheduled(fixedRateString = "${jwt.access.expiration}", initialDelayString = "${jwt.access.expiration}")
+    public synchronized void rotateFilter() {
+        previous = current;
+        current = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    // Revocations published by any instance, including this one
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addToFilter(HexFormat.of().parseHex(new String(message.getBody(), StandardCharsets.UTF_8)));
+    }
+
+    private int synchronizeFilter() {
+        long now = System.currentTimeMillis();
+        stringRedisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, Double.NEGATIVE_INFINITY, now);
+        Set<String> hashes = stringRedisTemplate.opsForZSet().rangeByScore(INDEX_KEY, now, Double.POSITIVE_INFINITY);
+        if (hashes == null) {
+            return 0;
+        }
+        for (String hex : hashes) {
+            addToFilter(HexFormat.of().parseHex(hex));
+        }
+        return hashes.size();
+    }
+
+    // Synchronized with the rotation, an add can not land in a generation that was just retired
+    private synchronized void addToFilter(byte[] hash) {
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        current.add(buffer.getLong(0), buffer.getLong(8));
+    }
+
+    private boolean mightBeBlacklisted(byte[] hash) {
+        ByteBuffer buffer = ByteBuffer.wrap(hash);
+        long hash1 = buffer.getLong(0);
+        long hash2 = buffer.getLong(8);
+        return current.mightContain(hash1, hash2) || previous.mightContain(hash1, hash2);
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.house.hunter.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Bloom filter over 128 bit hashes, the bit positions are derived from its two halves. Adds and lookups may run
+// concurrently, a lookup never misses an add that completed before it.
+public final class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (optimalBits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashFunctions = (int) Math.max(1, Math.round((double) bitCount / expectedInsertions * ln2));
+    }
+
+    public void add(long hash1, long hash2) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = bit(hash1, hash2, i);
+            words.accumulateAndGet((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+        }
+    }
+
+    public boolean mightContain(long hash1, long hash2) {
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = bit(hash1, hash2, i);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long bit(long hash1, long hash2, int i) {
+        return Math.floorMod(hash1 + i * hash2, bitCount);
+    }
+}
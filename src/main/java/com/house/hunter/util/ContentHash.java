@@ -0,0 +1,49 @@
+package com.house.hunter.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// SHA-256 content hashes of stored files, computed while the bytes are streamed so that a file is never held in memory
+public final class ContentHash {
+    private static final String ALGORITHM = "SHA-256";
+
+    private ContentHash() {
+    }
+
+    // Copies the stream to the target and returns the hex hash of the copied bytes
+    public static String copy(InputStream inputStream, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream digestStream = new DigestInputStream(inputStream, digest)) {
+            Files.copy(digestStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String of(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream digestStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    public static String of(byte[] bytes) {
+        return HexFormat.of().formatHex(newDigest().digest(bytes));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
@@ -8,14 +8,10 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.Arrays;
 import java.util.UUID;
-import java.util.stream.Stream;
 
 public class DocumentUtil {
     private static DocumentUtil INSTANCE;
@@ -39,10 +35,10 @@ public class DocumentUtil {
     }
 
     public Resource getDocument(String documentName) {
-        File dir = new File(DOCUMENT_DIRECTORY + "/" + documentName);
+        Path documentPath = StorageLayout.locate(Path.of(DOCUMENT_DIRECTORY), documentName);
         try {
-            if (dir.exists()) {
-                Resource resource = new UrlResource(dir.toURI());
+            if (documentPath != null) {
+                Resource resource = new UrlResource(documentPath.toUri());
                 return resource;
             }
         } catch (IOException e) {
@@ -51,27 +47,30 @@ public class DocumentUtil {
         return null;
     }
 
-    public String saveDocumentToStorage(MultipartFile document) throws IOException {
-        final String uniqueFileName = UUID.randomUUID() + "_" + document.getOriginalFilename();
-        return saveDocumentToStorage(uniqueFileName, document);
+    public Path getStorageDirectory() {
+        return Path.of(DOCUMENT_DIRECTORY);
     }
 
-    public String saveDocumentToStorage(String filename, MultipartFile document) throws IOException {
-        final Path uploadPath = Path.of(DOCUMENT_DIRECTORY);
-        final Path filePath = uploadPath.resolve(filename);
+    // Streams the upload to storage and hashes it on the way, the caller looks the hash up to reject duplicates
+    public StoredDocument saveDocumentToStorage(MultipartFile document) throws IOException {
+        final String uniqueFileName = UUID.randomUUID() + "_" + document.getOriginalFilename();
+        final Path filePath = StorageLayout.prepare(Path.of(DOCUMENT_DIRECTORY), uniqueFileName);
 
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        try {
+            return new StoredDocument(uniqueFileName, ContentHash.copy(document.getInputStream(), filePath));
+        } catch (IOException e) {
+            Files.deleteIfExists(filePath);
+            throw e;
         }
+    }
 
-        // Check if a document with the same data already exists
-        if (isDocumentDuplicate(DOCUMENT_DIRECTORY, document)) {
-            throw new IllegalArgumentException("Document with the same data already exists");
+    // Content hash of a stored document, for documents saved before the hash was recorded
+    public String hash(String filename) throws IOException {
+        Path documentPath = StorageLayout.locate(Path.of(DOCUMENT_DIRECTORY), filename);
+        if (documentPath == null) {
+            throw new DocumentNotFoundException("Document not found");
         }
-
-        Files.copy(document.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-        return filename;
+        return ContentHash.of(documentPath);
     }
 
     public void deleteDocument(String filename) throws IOException {
@@ -79,10 +78,7 @@ public class DocumentUtil {
     }
 
     public void deleteDocument(String documentDirectory, String filename, boolean isFailover) throws IOException {
-        Path documentPath = Path.of(documentDirectory, filename);
-        if (Files.exists(documentPath)) {
-            Files.delete(documentPath);
-        } else {
+        if (!StorageLayout.delete(Path.of(documentDirectory), filename)) {
             if (isFailover) {
                 LOGGER.warn("Failed to delete document: {}", filename);
                 return;
@@ -92,21 +88,11 @@ public class DocumentUtil {
 
     }
 
-    private boolean isDocumentDuplicate(String uploadDirectory, MultipartFile document) throws IOException {
-        byte[] newDocumentBytes = document.getBytes();
-
-        // Iterate over existing images in the directory
-        try (Stream<Path> paths = Files.walk(Path.of(uploadDirectory))) {
-            return paths
-                    .filter(Files::isRegularFile)
-                    .anyMatch(path -> {
-                        try {
-                            byte[] existingDocumentBytes = Files.readAllBytes(path);
-                            return Arrays.equals(newDocumentBytes, existingDocumentBytes);
-                        } catch (IOException e) {
-                            return false;
-                        }
-                    });
-        }
+    // Moves the documents stored before the sharded layout into their shards, returns the number moved
+    public int migrateLayout() throws IOException {
+        return StorageLayout.migrate(Path.of(DOCUMENT_DIRECTORY), filename -> false);
+    }
+
+    public record StoredDocument(String filename, String contentHash) {
     }
 }
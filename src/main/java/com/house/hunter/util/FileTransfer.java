@@ -0,0 +1,110 @@
+package com.house.hunter.util;
+
+import com.house.hunter.storage.FileRegion;
+import com.house.hunter.storage.ImageCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Writes a file, or a blob inside a segment file, to the response without reading it into the heap. A single byte range is answered with 206, several
+// ranges with the whole file. Tomcat sends the file with sendfile when its connector supports it, the kernel copies it
+// from the page cache. Otherwise the bytes come from the off-heap image cache, or through FileChannel.transferTo for
+// files the cache does not take.
+public final class FileTransfer {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileTransfer() {
+    }
+
+    public static void send(FileRegion region, ImageCache cache, HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        final long length = region.length();
+        long start = 0;
+        long end = length - 1;
+        int status = HttpServletResponse.SC_OK;
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges = rangeApplies(request, response) ? parseRanges(request.getHeader(HttpHeaders.RANGE)) : List.of();
+        if (ranges.size() == 1) {
+            start = ranges.get(0).getRangeStart(length);
+            end = ranges.get(0).getRangeEnd(length);
+            if (start >= length || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            status = HttpServletResponse.SC_PARTIAL_CONTENT;
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+        final long count = end - start + 1;
+        response.setStatus(status);
+        response.setContentType(MediaTypeFactory.getMediaType(region.name())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, region.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, region.offset() + start);
+            // Exclusive end
+            request.setAttribute(SENDFILE_END, region.offset() + end + 1);
+            return;
+        }
+        WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+        try (ImageCache.Lease lease = cache.lease(region)) {
+            // The cached copy is only used while it has the length the headers were computed from
+            if (lease != null && lease.length() == length) {
+                lease.transferTo(start, count, target);
+                return;
+            }
+        }
+        try (FileChannel channel = FileChannel.open(region.file(), StandardOpenOption.READ)) {
+            long position = region.offset() + start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // The Range of a request with an If-Range validator only applies while the validator matches the one already set on
+    // the response, a client resuming a download of changed content gets the whole file
+    private static boolean rangeApplies(HttpServletRequest request, HttpServletResponse response) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(response.getHeader(HttpHeaders.ETAG))
+                || ifRange.equals(response.getHeader(HttpHeaders.LAST_MODIFIED));
+    }
+
+    // A malformed Range header is ignored, as RFC 9110 allows
+    private static List<HttpRange> parseRanges(String header) {
+        if (header == null) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+}
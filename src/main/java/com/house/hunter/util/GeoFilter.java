@@ -0,0 +1,232 @@
+package com.house.hunter.util;
+
+import com.house.hunter.exception.IllegalRequestException;
+import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Geographic part of the search criteria. Radius, bounding box and polygon can be combined, a property has to lie in
+// every given shape. Distances are measured on an equirectangular projection around the radius center, which stays
+// within a fraction of a percent of the great circle distance for radii up to MAX_RADIUS. The database gets the same
+// arithmetic, so the index and the SQL fallback agree on properties lying on a boundary.
+public final class GeoFilter {
+    public static final double METERS_PER_DEGREE = 111_320;
+    private static final double MAX_RADIUS = 50_000;
+    private static final int MAX_POLYGON_VERTICES = 100;
+
+    // Intersection of the envelopes of all shapes
+    private final double minLatitude;
+    private final double maxLatitude;
+    private final double minLongitude;
+    private final double maxLongitude;
+    // Circle in projected degrees, radius is NaN when there is no circle
+    private final double centerLatitude;
+    private final double centerLongitude;
+    private final double longitudeScale;
+    private final double radius;
+    // Polygon edges with the crossing longitude of an edge at latitude y being edgeOffsets[i] + edgeSlopes[i] * y
+    private final double[] edgeLowLatitudes;
+    private final double[] edgeHighLatitudes;
+    private final double[] edgeOffsets;
+    private final double[] edgeSlopes;
+
+    private GeoFilter(PropertySearchCriteriaDTO criteria) {
+        double minLat = -90;
+        double maxLat = 90;
+        double minLng = -180;
+        double maxLng = 180;
+        if (hasBox(criteria)) {
+            if (criteria.getMinLatitude() == null || criteria.getMaxLatitude() == null
+                    || criteria.getMinLongitude() == null || criteria.getMaxLongitude() == null) {
+                throw new IllegalRequestException("A bounding box needs minLatitude, maxLatitude, minLongitude and maxLongitude");
+            }
+            checkCoordinates(criteria.getMinLatitude(), criteria.getMinLongitude());
+            checkCoordinates(criteria.getMaxLatitude(), criteria.getMaxLongitude());
+            if (criteria.getMinLatitude() > criteria.getMaxLatitude() || criteria.getMinLongitude() > criteria.getMaxLongitude()) {
+                throw new IllegalRequestException("Bounding box minimum must not exceed its maximum");
+            }
+            minLat = criteria.getMinLatitude();
+            maxLat = criteria.getMaxLatitude();
+            minLng = criteria.getMinLongitude();
+            maxLng = criteria.getMaxLongitude();
+        }
+        if (hasCircle(criteria)) {
+            if (criteria.getLatitude() == null || criteria.getLongitude() == null || criteria.getRadius() == null) {
+                throw new IllegalRequestException("A radius search needs latitude, longitude and radius");
+            }
+            checkCoordinates(criteria.getLatitude(), criteria.getLongitude());
+            if (criteria.getRadius() <= 0 || criteria.getRadius() > MAX_RADIUS) {
+                throw new IllegalRequestException("Radius must be between 0 and " + (int) MAX_RADIUS + " meters");
+            }
+            centerLatitude = criteria.getLatitude();
+            centerLongitude = criteria.getLongitude();
+            longitudeScale = Math.cos(Math.toRadians(centerLatitude));
+            radius = criteria.getRadius() / METERS_PER_DEGREE;
+            minLat = Math.max(minLat, centerLatitude - radius);
+            maxLat = Math.min(maxLat, centerLatitude + radius);
+            minLng = Math.max(minLng, centerLongitude - radius / longitudeScale);
+            maxLng = Math.min(maxLng, centerLongitude + radius / longitudeScale);
+        } else {
+            centerLatitude = Double.NaN;
+            centerLongitude = Double.NaN;
+            longitudeScale = Double.NaN;
+            radius = Double.NaN;
+        }
+        if (criteria.getPolygon() != null && !criteria.getPolygon().isBlank()) {
+            double[][] vertices = parsePolygon(criteria.getPolygon());
+            List<double[]> edges = new ArrayList<>();
+            double polygonMinLat = 90;
+            double polygonMaxLat = -90;
+            double polygonMinLng = 180;
+            double polygonMaxLng = -180;
+            for (int i = 0; i < vertices.length; i++) {
+                double[] from = vertices[i];
+                double[] to = vertices[(i + 1) % vertices.length];
+                polygonMinLat = Math.min(polygonMinLat, from[0]);
+                polygonMaxLat = Math.max(polygonMaxLat, from[0]);
+                polygonMinLng = Math.min(polygonMinLng, from[1]);
+                polygonMaxLng = Math.max(polygonMaxLng, from[1]);
+                // Horizontal edges are never crossed by the horizontal ray
+                if (from[0] != to[0]) {
+                    double slope = (to[1] - from[1]) / (to[0] - from[0]);
+                    edges.add(new double[]{Math.min(from[0], to[0]), Math.max(from[0], to[0]), from[1] - slope * from[0], slope});
+                }
+            }
+            edgeLowLatitudes = edges.stream().mapToDouble(edge -> edge[0]).toArray();
+            edgeHighLatitudes = edges.stream().mapToDouble(edge -> edge[1]).toArray();
+            edgeOffsets = edges.stream().mapToDouble(edge -> edge[2]).toArray();
+            edgeSlopes = edges.stream().mapToDouble(edge -> edge[3]).toArray();
+            minLat = Math.max(minLat, polygonMinLat);
+            maxLat = Math.min(maxLat, polygonMaxLat);
+            minLng = Math.max(minLng, polygonMinLng);
+            maxLng = Math.min(maxLng, polygonMaxLng);
+        } else {
+            edgeLowLatitudes = null;
+            edgeHighLatitudes = null;
+            edgeOffsets = null;
+            edgeSlopes = null;
+        }
+        this.minLatitude = minLat;
+        this.maxLatitude = maxLat;
+        this.minLongitude = minLng;
+        this.maxLongitude = maxLng;
+    }
+
+    // Returns null when the criteria have no geographic filter
+    public static GeoFilter of(PropertySearchCriteriaDTO criteria) {
+        if (!hasBox(criteria) && !hasCircle(criteria) && (criteria.getPolygon() == null || criteria.getPolygon().isBlank())) {
+            return null;
+        }
+        return new GeoFilter(criteria);
+    }
+
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    // Properties without coordinates (NaN) never match
+    public boolean contains(double latitude, double longitude) {
+        if (!(latitude >= minLatitude && latitude <= maxLatitude && longitude >= minLongitude && longitude <= maxLongitude)) {
+            return false;
+        }
+        if (!Double.isNaN(radius)) {
+            double dx = (longitude - centerLongitude) * longitudeScale;
+            double dy = latitude - centerLatitude;
+            if (dx * dx + dy * dy > radius * radius) {
+                return false;
+            }
+        }
+        if (edgeOffsets != null) {
+            // Even-odd rule on a ray towards lower longitudes
+            boolean inside = false;
+            for (int i = 0; i < edgeOffsets.length; i++) {
+                if (latitude >= edgeLowLatitudes[i] && latitude < edgeHighLatitudes[i]
+                        && longitude < edgeOffsets[i] + edgeSlopes[i] * latitude) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+        return true;
+    }
+
+    // Same checks as contains, the envelope bounds let the database use an index on the coordinates
+    public Predicate toPredicate(Path<Double> latitude, Path<Double> longitude, CriteriaBuilder criteriaBuilder) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(criteriaBuilder.between(latitude, minLatitude, maxLatitude));
+        predicates.add(criteriaBuilder.between(longitude, minLongitude, maxLongitude));
+        if (!Double.isNaN(radius)) {
+            Expression<Double> dx = criteriaBuilder.prod(criteriaBuilder.diff(longitude, centerLongitude), longitudeScale);
+            Expression<Double> dy = criteriaBuilder.diff(latitude, centerLatitude);
+            predicates.add(criteriaBuilder.le(
+                    criteriaBuilder.sum(criteriaBuilder.prod(dx, dx), criteriaBuilder.prod(dy, dy)), radius * radius));
+        }
+        if (edgeOffsets != null) {
+            Expression<Integer> crossings = criteriaBuilder.literal(0);
+            for (int i = 0; i < edgeOffsets.length; i++) {
+                Predicate crossing = criteriaBuilder.and(
+                        criteriaBuilder.ge(latitude, edgeLowLatitudes[i]),
+                        criteriaBuilder.lt(latitude, edgeHighLatitudes[i]),
+                        criteriaBuilder.lt(longitude,
+                                criteriaBuilder.sum(criteriaBuilder.prod(latitude, edgeSlopes[i]), edgeOffsets[i])));
+                crossings = criteriaBuilder.sum(crossings, criteriaBuilder.<Integer>selectCase().when(crossing, 1).otherwise(0));
+            }
+            predicates.add(criteriaBuilder.equal(criteriaBuilder.mod(crossings, 2), 1));
+        }
+        return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
+    }
+
+    private static boolean hasBox(PropertySearchCriteriaDTO criteria) {
+        return criteria.getMinLatitude() != null || criteria.getMaxLatitude() != null
+                || criteria.getMinLongitude() != null || criteria.getMaxLongitude() != null;
+    }
+
+    private static boolean hasCircle(PropertySearchCriteriaDTO criteria) {
+        return criteria.getLatitude() != null || criteria.getLongitude() != null || criteria.getRadius() != null;
+    }
+
+    // Polygon parameter format: "lat,lng;lat,lng;lat,lng", the ring is closed implicitly
+    private static double[][] parsePolygon(String polygon) {
+        String[] points = polygon.trim().split(";");
+        if (points.length < 3 || points.length > MAX_POLYGON_VERTICES) {
+            throw new IllegalRequestException("A polygon needs between 3 and " + MAX_POLYGON_VERTICES + " vertices");
+        }
+        double[][] vertices = new double[points.length][];
+        for (int i = 0; i < points.length; i++) {
+            String[] coordinates = points[i].split(",");
+            if (coordinates.length != 2) {
+                throw new IllegalRequestException("Invalid polygon vertex: " + points[i]);
+            }
+            try {
+                vertices[i] = new double[]{Double.parseDouble(coordinates[0].trim()), Double.parseDouble(coordinates[1].trim())};
+            } catch (NumberFormatException e) {
+                throw new IllegalRequestException("Invalid polygon vertex: " + points[i]);
+            }
+            checkCoordinates(vertices[i][0], vertices[i][1]);
+        }
+        return vertices;
+    }
+
+    private static void checkCoordinates(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new IllegalRequestException("Coordinates out of range: " + latitude + "," + longitude);
+        }
+    }
+}
@@ -1,26 +1,60 @@
 package com.house.hunter.util;
 
+import com.house.hunter.constant.ImageSize;
+import com.house.hunter.exception.FileOperationException;
 import com.house.hunter.exception.ImageNotFoundException;
+import com.house.hunter.storage.BlobStore;
+import com.house.hunter.storage.FileRegion;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.Arrays;
-import java.util.UUID;
-import java.util.stream.Stream;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
+// Images are stored under the SHA-256 hash of their content, identical uploads share a single file
 public final class ImageUtil {
+    private static final String TEMPORARY_PREFIX = "upload-";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private static final Pattern EXTENSION = Pattern.compile("[A-Za-z0-9]{1,10}");
+    private static final String RENDITION_DIRECTORY = "renditions";
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String DIRECTORY_PROPERTY = "image.directory";
+    private static final float JPEG_QUALITY = 0.82f;
+    private static final int LARGEST_RENDITION_EDGE = ImageSize.values()[ImageSize.values().length - 1].getMaxEdge();
     private static ImageUtil INSTANCE;
-    private static String IMAGE_DIRECTORY;
+    private final String imageDirectory;
+    // Originals up to maxBlobSize are packed into the blob store when it is enabled, renditions are always files
+    private volatile BlobStore blobStore;
+    private volatile long maxBlobSize;
 
+    // The image.directory system property overrides the default directory
     private ImageUtil() {
-        if (System.getenv("DOCKER_ENV") != null) {
-            IMAGE_DIRECTORY = "/usr/local/lib/images";
-        } else {
-            IMAGE_DIRECTORY = "images";
-        }
+        this.imageDirectory = System.getProperty(DIRECTORY_PROPERTY,
+                System.getenv("DOCKER_ENV") != null ? "/usr/local/lib/images" : "images");
     }
 
     public static ImageUtil getInstance() {
@@ -32,8 +66,13 @@ public final class ImageUtil {
 
     // To view an image
     public byte[] getImage(String imageName) throws IOException {
-        Path imagePath = Path.of(IMAGE_DIRECTORY, imageName);
-        if (Files.exists(imagePath)) {
+        BlobStore store = blobStore;
+        byte[] blob = store != null ? store.read(imageName) : null;
+        if (blob != null) {
+            return blob;
+        }
+        Path imagePath = StorageLayout.locate(Path.of(imageDirectory), imageName);
+        if (imagePath != null) {
             byte[] imageBytes = Files.readAllBytes(imagePath);
             return imageBytes;
         } else {
@@ -41,55 +80,296 @@ public final class ImageUtil {
         }
     }
 
-    // Delete an image
-    public void deleteImage(String imageName) throws IOException {
-        Path imagePath = Path.of(IMAGE_DIRECTORY, imageName);
-        if (Files.exists(imagePath)) {
-            Files.delete(imagePath);
-        } else {
+    // To stream an image, from its file or from its blob
+    public FileRegion getImageRegion(String imageName) {
+        BlobStore store = blobStore;
+        FileRegion region = store != null ? store.region(imageName) : null;
+        if (region != null) {
+            return region;
+        }
+        try {
+            return FileRegion.of(getImagePath(imageName));
+        } catch (NoSuchFileException e) {
+            throw new ImageNotFoundException("Image not found");
+        } catch (IOException e) {
+            throw new FileOperationException(e.getMessage());
+        }
+    }
+
+    // File of an image that is not in the blob store
+    public Path getImagePath(String imageName) {
+        Path imagePath = StorageLayout.locate(Path.of(imageDirectory), imageName);
+        if (imagePath == null) {
             throw new ImageNotFoundException("Image not found");
         }
+        return imagePath;
     }
 
-    public String saveUpdatedImages(MultipartFile imageFile) throws IOException {
-        return saveImages(imageFile, false);
+    // Cache keys of the original and every rendition an image may have, in both layouts and whether they exist or not.
+    // The blob of the original is only included while it is stored.
+    public List<FileRegion> getImageFiles(String imageName) {
+        List<FileRegion> files = new ArrayList<>();
+        BlobStore store = blobStore;
+        FileRegion blob = store != null ? store.region(imageName) : null;
+        if (blob != null) {
+            files.add(blob);
+        }
+        files.add(FileRegion.key(StorageLayout.shardedPath(Path.of(imageDirectory), imageName)));
+        files.add(FileRegion.key(Path.of(imageDirectory, imageName)));
+        files.addAll(getRenditionFiles(imageName));
+        return files;
     }
 
-    public String saveImages(MultipartFile imageFile, boolean isDuplicatedCheck) throws IOException {
-        final String uniqueFileName = UUID.randomUUID() + "_" + imageFile.getOriginalFilename();
+    public List<FileRegion> getRenditionFiles(String imageName) {
+        List<FileRegion> files = new ArrayList<>();
+        for (ImageSize size : ImageSize.values()) {
+            files.add(FileRegion.key(StorageLayout.shardedPath(renditionDirectory(), renditionName(imageName, size))));
+            files.add(FileRegion.key(renditionDirectory().resolve(renditionName(imageName, size))));
+        }
+        return files;
+    }
 
-        final Path uploadPath = Path.of(IMAGE_DIRECTORY);
-        final Path filePath = uploadPath.resolve(uniqueFileName);
+    // Root of the image files, the sharded originals lie in its two hex character directories
+    public Path getStorageDirectory() {
+        return Path.of(imageDirectory);
+    }
+
+    // Rendition of an image, null when it has not been rendered or the original is not larger
+    public FileRegion getRenditionRegion(String imageName, ImageSize size) {
+        Path renditionPath = StorageLayout.locate(renditionDirectory(), renditionName(imageName, size));
+        try {
+            return renditionPath != null ? FileRegion.of(renditionPath) : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new FileOperationException(e.getMessage());
+        }
+    }
 
+    // Renders the sizes smaller than the image as JPEG and returns the dimensions of the original, null when ImageIO
+    // cannot decode it. Sizes the original already fits into are served from the original. The dimensions are read from
+    // the header first: an image of more than maxPixels is rejected, a larger one than needed is decoded subsampled.
+    public Dimension createRenditions(String imageName, long maxPixels) throws IOException {
+        BufferedImage original;
+        int width;
+        int height;
+        try (ImageInputStream input = openImage(imageName)) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                width = reader.getWidth(0);
+                height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    throw new IIOException("Image of " + width + "x" + height + " pixels exceeds " + maxPixels + " pixels");
+                }
+                // Every rendition is still scaled down from at least its own size
+                int subsampling = Math.max(1, Math.max(width, height) / LARGEST_RENDITION_EDGE);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                original = reader.read(0, param);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                // Corrupt data surfaces as runtime exceptions of the decoder, it would fail the same way every time
+                throw new IIOException("Image could not be decoded", e);
+            } finally {
+                reader.dispose();
+            }
+        }
+        // Sizes from large to small, each one is scaled down from the previous one
+        BufferedImage source = original;
+        ImageSize[] sizes = ImageSize.values();
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            if (Math.max(width, height) <= sizes[i].getMaxEdge()) {
+                continue;
+            }
+            source = scale(source, sizes[i].getMaxEdge());
+            writeJpeg(source, StorageLayout.prepare(renditionDirectory(), renditionName(imageName, sizes[i])));
+        }
+        return new Dimension(width, height);
+    }
+
+    // A blob is small enough to be read at once, a file is read as the decoder goes
+    private ImageInputStream openImage(String imageName) throws IOException {
+        BlobStore store = blobStore;
+        byte[] blob = store != null ? store.read(imageName) : null;
+        if (blob != null) {
+            return ImageIO.createImageInputStream(new ByteArrayInputStream(blob));
+        }
+        return ImageIO.createImageInputStream(getImagePath(imageName).toFile());
+    }
+
+    // Marks a stored image as just stored, a file released concurrently is then left alone until the grace period ends
+    public void touch(String imageName) throws IOException {
+        BlobStore store = blobStore;
+        if (store != null && store.renew(imageName) != null) {
+            return;
+        }
+        Path imagePath = StorageLayout.locate(Path.of(imageDirectory), imageName);
+        if (imagePath != null) {
+            Files.setLastModifiedTime(imagePath, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+    }
+
+    // False as well when the image is not stored
+    public boolean storedBefore(String imageName, long cutoff) throws IOException {
+        BlobStore store = blobStore;
+        BlobStore.Location location = store != null ? store.locate(imageName) : null;
+        if (location != null) {
+            return location.storedAt() < cutoff;
+        }
+        Path imagePath = StorageLayout.locate(Path.of(imageDirectory), imageName);
+        try {
+            return imagePath != null && Files.getLastModifiedTime(imagePath).toMillis() < cutoff;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    // Delete an image
+    public void deleteImage(String imageName) throws IOException {
+        BlobStore store = blobStore;
+        boolean blobDeleted = store != null && store.delete(imageName);
+        if (StorageLayout.locate(Path.of(imageDirectory), imageName) != null || blobDeleted) {
+            for (ImageSize size : ImageSize.values()) {
+                StorageLayout.delete(renditionDirectory(), renditionName(imageName, size));
+            }
+            StorageLayout.delete(Path.of(imageDirectory), imageName);
+        } else {
+            throw new ImageNotFoundException("Image not found");
+        }
+    }
+
+    // Streams the upload into a temporary file of the image directory and hashes it on the way, nothing is read twice
+    public StagedImage stage(MultipartFile imageFile) throws IOException {
+        final Path uploadPath = Path.of(imageDirectory);
         if (!Files.exists(uploadPath)) {
             Files.createDirectories(uploadPath);
         }
-        if (isDuplicatedCheck) {
-            // Check if an image with the same data already exists
-            if (isImageDuplicate(imageFile)) {
-                throw new IllegalArgumentException("Image with the same data already exists");
-            }
+        final Path temporaryPath = Files.createTempFile(uploadPath, TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        final String contentHash;
+        try {
+            contentHash = ContentHash.copy(imageFile.getInputStream(), temporaryPath);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        }
+        return new StagedImage(temporaryPath, contentHash, extension(imageFile.getOriginalFilename()));
+    }
+
+    // Moves a staged upload to its content addressed name. A concurrent upload of the same bytes moves an identical
+    // file to the same name, so replacing it is harmless.
+    public String store(StagedImage stagedImage) throws IOException {
+        BlobStore store = blobStore;
+        if (store != null && Files.size(stagedImage.path()) <= maxBlobSize) {
+            store.put(stagedImage.filename(), stagedImage.path());
+            discard(stagedImage);
+            return stagedImage.filename();
+        }
+        final Path filePath = StorageLayout.prepare(Path.of(imageDirectory), stagedImage.filename());
+        Files.move(stagedImage.path(), filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stagedImage.filename();
+    }
+
+    public void discard(StagedImage stagedImage) throws IOException {
+        Files.deleteIfExists(stagedImage.path());
+    }
+
+    // Content hash of a stored image, for images saved before they were content addressed
+    public String hash(String imageName) throws IOException {
+        BlobStore store = blobStore;
+        byte[] blob = store != null ? store.read(imageName) : null;
+        return blob != null ? ContentHash.of(blob) : ContentHash.of(getImagePath(imageName));
+    }
+
+    // Opens the blob store in the image directory, new originals up to maxBlobSize are stored in it from now on. The
+    // images stored as files stay files.
+    public BlobStore openBlobStore(long segmentSize, long maxBlobSize) throws IOException {
+        BlobStore store = new BlobStore(Path.of(imageDirectory, BLOB_DIRECTORY), segmentSize);
+        this.maxBlobSize = maxBlobSize;
+        this.blobStore = store;
+        return store;
+    }
+
+    // Moves the images and renditions stored before the sharded layout into their shards, returns the number moved.
+    // Uploads being staged stay where they are.
+    public int migrateLayout() throws IOException {
+        Predicate<String> temporary = filename -> filename.startsWith(TEMPORARY_PREFIX) && filename.endsWith(TEMPORARY_SUFFIX);
+        return StorageLayout.migrate(Path.of(imageDirectory), temporary)
+                + StorageLayout.migrate(renditionDirectory(), temporary);
+    }
+
+    private Path renditionDirectory() {
+        return Path.of(imageDirectory, RENDITION_DIRECTORY);
+    }
+
+    private static String renditionName(String imageName, ImageSize size) {
+        int extensionStart = imageName.lastIndexOf('.');
+        String baseName = extensionStart > 0 ? imageName.substring(0, extensionStart) : imageName;
+        return baseName + "-" + size.name().toLowerCase() + ".jpg";
+    }
+
+    // Halves the image until it is within twice the target, then scales bilinearly to the target. Scaling a large
+    // photo in one bilinear step skips most source pixels and aliases.
+    private static BufferedImage scale(BufferedImage image, int maxEdge) {
+        double factor = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * factor));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * factor));
+        BufferedImage scaled = image;
+        do {
+            int width = Math.max(targetWidth, scaled.getWidth() / 2);
+            int height = Math.max(targetHeight, scaled.getHeight() / 2);
+            scaled = draw(scaled, width, height);
+        } while (scaled.getWidth() != targetWidth || scaled.getHeight() != targetHeight);
+        return scaled;
+    }
+
+    // JPEG has no alpha channel, transparent pixels end up white
+    private static BufferedImage draw(BufferedImage image, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
         }
-        Files.copy(imageFile.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        return target;
+    }
 
-        return uniqueFileName;
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        Path temporaryPath = Files.createTempFile(target.getParent(), TEMPORARY_PREFIX, TEMPORARY_SUFFIX);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(temporaryPath.toFile())) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryPath);
+            throw e;
+        } finally {
+            writer.dispose();
+        }
+        Files.move(temporaryPath, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    private boolean isImageDuplicate(MultipartFile imageFile) throws IOException {
-        byte[] newImageBytes = imageFile.getBytes();
+    // Keeps the extension of the uploaded name when it is a plain one, the rest of the name is not trusted
+    private static String extension(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+        return originalFilename.contains(".") && EXTENSION.matcher(extension).matches() ? "." + extension.toLowerCase() : "";
+    }
 
-        // Iterate over existing images in the directory
-        try (Stream<Path> paths = Files.walk(Path.of(IMAGE_DIRECTORY))) {
-            return paths
-                    .filter(Files::isRegularFile)
-                    .anyMatch(path -> {
-                        try {
-                            byte[] existingImageBytes = Files.readAllBytes(path);
-                            return Arrays.equals(newImageBytes, existingImageBytes);
-                        } catch (IOException e) {
-                            return false;
-                        }
-                    });
+    // Upload written to the image directory but not yet under its final name
+    public record StagedImage(Path path, String contentHash, String extension) {
+        public String filename() {
+            return contentHash + extension;
         }
     }
 }
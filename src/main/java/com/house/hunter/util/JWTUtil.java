@@ -54,7 +54,10 @@ public class JWTUtil {
         Map<String, Object> claims = new HashMap<>();
         claims.put("email", email);
         claims.put("role", role);
-        claims.put("status", userRepository.findByEmail(email).get().getVerificationStatus().name());
+        final User user = userRepository.findByEmail(email).get();
+        claims.put("status", user.getVerificationStatus().name());
+        // Revocation epoch of the user, the token is rejected once the epoch is raised
+        claims.put("epoch", user.getTokenEpoch() == null ? 0L : user.getTokenEpoch());
         return TOKEN_PREFIX + Jwts.builder()
                 .setClaims(claims)
                 .setIssuedAt(Date.from(Instant.now()))
@@ -65,12 +68,30 @@ public class JWTUtil {
 
     public boolean validateTokenWithoutPrefix(String token) {
         try {
-            return validateTokenClaims(parseClaims(token));
+            return verifyToken(token) != null;
         } catch (Exception e) {
             return false;
         }
     }
 
+    // Parses the token and checks its signature once, null when its claims are incomplete. An expired token throws
+    // ExpiredJwtException.
+    public VerifiedToken verifyToken(String token) {
+        Claims claims = parseClaims(token);
+        String email = getEmail(claims);
+        String role = getRole(claims);
+        String status = getStatus(claims);
+        Long epoch = claims.get("epoch", Long.class);
+        Date expiration = claims.getExpiration();
+        if (expiration == null || !expiration.toInstant().isAfter(Instant.now()) ||
+                status == null || status.isEmpty() ||
+                email == null || email.isEmpty() ||
+                role == null || !isValidRole(role)) {
+            return null;
+        }
+        return new VerifiedToken(email, role, status, epoch == null ? 0 : epoch, expiration.toInstant());
+    }
+
     private Claims parseClaims(String token) {
         return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
     }
@@ -79,22 +100,6 @@ public class JWTUtil {
         return parseClaims(token).get("email", String.class);
     }
 
-
-    private boolean validateTokenClaims(Claims claims) {
-        try {
-            Date exp = claims.get("exp", Date.class);
-            Instant expirationTime = exp.toInstant();
-
-            // Check if the token is expired, email is invalid, or role is invalid
-            return expirationTime.isAfter(Instant.now()) &&
-                    getStatus(claims) != null && !getStatus(claims).isEmpty() &&
-                    getEmail(claims) != null && !getEmail(claims).isEmpty() &&
-                    getRole(claims) != null && isValidRole(getRole(claims));
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
     public Instant getExpirationDateFromToken(String token) {
         return parseClaims(token).getExpiration().toInstant();
     }
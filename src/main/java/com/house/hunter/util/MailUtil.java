@@ -4,10 +4,12 @@ import com.house.hunter.model.dto.user.RequestFormDTO;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.mail.javamail.MimeMessagePreparator;
+import org.springframework.web.util.HtmlUtils;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
 
 public class MailUtil {
@@ -243,6 +245,31 @@ public class MailUtil {
         };
     }
 
+    public static MimeMessagePreparator buildSavedSearchAlertEmail(String recipientEmail, List<String> searchNames,
+                                                                   String propertyTitle, UUID propertyId) {
+        return mimeMessage -> {
+            MimeMessageHelper messageHelper = new MimeMessageHelper(mimeMessage, true);
+            messageHelper.setTo(recipientEmail);
+            messageHelper.setSubject("New Property Matching Your Saved Search");
+
+            // The title and the names are user input, and the mail goes to other users than the landlord
+            String message = "<html><body>" +
+                    "<img src='cid:logo' alt='House Hunter Logo' style='width: 200px; height: auto;'><br><br>" +
+                    "<p>Dear user,</p>" +
+                    "<p>A new property matching your saved search " + HtmlUtils.htmlEscape(String.join(", ", searchNames)) + " has been published:</p>" +
+                    "<ul>" +
+                    "<li>Property Title: " + HtmlUtils.htmlEscape(propertyTitle) + "</li>" +
+                    "<li>Property ID: " + propertyId + "</li>" +
+                    "</ul>" +
+                    "<p><a href='" + HOST + "/api/v1/properties/details?id=" + propertyId + "'>View Property</a></p>" +
+                    "<p>Thank you for using House Hunter.</p>" +
+                    "</body></html>";
+
+            messageHelper.setText(message, true);
+            messageHelper.addInline("logo", new ClassPathResource(LOGO_PATH));
+        };
+    }
+
 
     private static String generateDataRetentionToken(String email) {
         // Generate a unique token based on the user's email and current timestamp
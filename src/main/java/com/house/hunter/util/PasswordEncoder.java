@@ -1,14 +0,0 @@
-package com.house.hunter.util;
-
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-
-public class PasswordEncoder {
-
-    private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-
-    public static BCryptPasswordEncoder getPasswordEncoder() {
-        return encoder;
-    }
-
-
-}
@@ -0,0 +1,102 @@
+package com.house.hunter.util;
+
+import com.house.hunter.exception.IllegalRequestException;
+import com.house.hunter.model.dto.search.PropertyView;
+import com.house.hunter.model.entity.Property;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+// Continuation token of the keyset search, carries the sort and the sort key of the last returned property
+public final class PropertyCursor {
+    private static final String SEPARATOR = "|";
+    private static final String CREATED_AT = "createdAt";
+    private static final String PRICE = "price";
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Object value;
+    private final UUID id;
+
+    private PropertyCursor(String property, Sort.Direction direction, Object value, UUID id) {
+        this.property = property;
+        this.direction = direction;
+        this.value = value;
+        this.id = id;
+    }
+
+    // First page for a sort parameter like "price,asc"
+    public static PropertyCursor initial(String sort) {
+        String[] parts = sort.split(",");
+        if (parts.length > 2 || !isSortProperty(parts[0].trim())) {
+            throw new IllegalRequestException("Keyset search can only be sorted by createdAt or price");
+        }
+        return new PropertyCursor(parts[0].trim(), parts.length == 2 ? direction(parts[1].trim()) : Sort.Direction.DESC, null, null);
+    }
+
+    public static PropertyCursor decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !isSortProperty(parts[0])) {
+                throw new IllegalRequestException("Invalid cursor");
+            }
+            Object value = CREATED_AT.equals(parts[0]) ? LocalDateTime.parse(parts[2]) : Double.valueOf(parts[2]);
+            return new PropertyCursor(parts[0], Sort.Direction.valueOf(parts[1]), value, UUID.fromString(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalRequestException("Invalid cursor");
+        }
+    }
+
+    // The id breaks ties so that properties sharing a price or timestamp are neither skipped nor repeated
+    public Sort sort() {
+        return Sort.by(new Sort.Order(direction, property), new Sort.Order(direction, "id"));
+    }
+
+    // Seek predicate: rows strictly behind the last returned (value, id) pair in the sort order. Rows without a sort
+    // key are left out on every page, a comparison would skip them after the first one anyway.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Specification<Property> seek() {
+        return (root, query, criteriaBuilder) -> {
+            Path<Comparable> sortKey = root.get(property);
+            if (id == null) {
+                return criteriaBuilder.isNotNull(sortKey);
+            }
+            Path<UUID> idKey = root.get("id");
+            Comparable last = (Comparable) value;
+            if (direction.isDescending()) {
+                return criteriaBuilder.or(criteriaBuilder.lessThan(sortKey, last),
+                        criteriaBuilder.and(criteriaBuilder.equal(sortKey, last), criteriaBuilder.lessThan(idKey, id)));
+            }
+            return criteriaBuilder.or(criteriaBuilder.greaterThan(sortKey, last),
+                    criteriaBuilder.and(criteriaBuilder.equal(sortKey, last), criteriaBuilder.greaterThan(idKey, id)));
+        };
+    }
+
+    public PropertyCursor after(PropertyView last) {
+        Object lastValue = CREATED_AT.equals(property) ? last.createdAt() : (Object) last.price();
+        return new PropertyCursor(property, direction, lastValue, last.id());
+    }
+
+    public String encode() {
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + value + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean isSortProperty(String property) {
+        return CREATED_AT.equals(property) || PRICE.equals(property);
+    }
+
+    private static Sort.Direction direction(String direction) {
+        try {
+            return Sort.Direction.fromString(direction);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalRequestException("Invalid sort direction: " + direction);
+        }
+    }
+}
@@ -6,6 +6,9 @@ import com.house.hunter.constant.IsFurnished;
 import com.house.hunter.constant.PropertyStatus;
 import com.house.hunter.model.dto.property.PropertySearchCriteriaDTO;
 import com.house.hunter.model.entity.Property;
+import com.house.hunter.search.TextAnalyzer;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
@@ -18,14 +21,15 @@ import java.util.stream.Collectors;
 
 public class PropertySpecifications {
     public static Specification<Property> createSpecification(PropertySearchCriteriaDTO criteria) {
+        GeoFilter geo = GeoFilter.of(criteria);
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
             predicates.add(criteriaBuilder.equal(root.get("status"), PropertyStatus.VERIFIED));
             if (criteria.getTitle() != null && !criteria.getTitle().isEmpty()) {
-                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), "%" + criteria.getTitle().toLowerCase() + "%"));
+                predicates.add(prefixesAll(criteriaBuilder, searchableText(criteriaBuilder, root.get("title")), criteria.getTitle()));
             }
             if (criteria.getDistrict() != null && !criteria.getDistrict().isEmpty()) {
-                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("district")), "%" + criteria.getDistrict().toLowerCase() + "%"));
+                predicates.add(prefixesAll(criteriaBuilder, searchableText(criteriaBuilder, root.get("district")), criteria.getDistrict()));
             }
 
             if (criteria.getMinPrice() != null) {
@@ -93,10 +97,24 @@ public class PropertySpecifications {
             }
 
             if (criteria.getAddress() != null && !criteria.getAddress().isEmpty()) {
-                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("address")), "%" + criteria.getAddress().toLowerCase() + "%"));
+                predicates.add(prefixesAll(criteriaBuilder, searchableText(criteriaBuilder, root.get("address")), criteria.getAddress()));
             }
             if (criteria.getDescription() != null && !criteria.getDescription().isEmpty()) {
-                predicates.add(criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), "%" + criteria.getDescription().toLowerCase() + "%"));
+                predicates.add(prefixesAll(criteriaBuilder, searchableText(criteriaBuilder, root.get("description")), criteria.getDescription()));
+            }
+            if (criteria.getQ() != null && !criteria.getQ().isBlank()) {
+                // Fallback while the search index is not ready, every word has to prefix a word of one of the text fields
+                List<Expression<String>> fields = List.of(searchableText(criteriaBuilder, root.get("title")),
+                        searchableText(criteriaBuilder, root.get("description")),
+                        searchableText(criteriaBuilder, root.get("address")),
+                        searchableText(criteriaBuilder, root.get("district")));
+                for (String token : TextAnalyzer.tokenize(criteria.getQ())) {
+                    predicates.add(criteriaBuilder.or(fields.stream()
+                            .map(field -> prefixes(criteriaBuilder, field, token)).toArray(Predicate[]::new)));
+                }
+            }
+            if (geo != null) {
+                predicates.add(geo.toPredicate(root.get("latitude"), root.get("longitude"), criteriaBuilder));
             }
             if (criteria.getOwnerEmail() != null && !criteria.getOwnerEmail().isEmpty()) {
                 predicates.add(criteriaBuilder.equal(root.join("owner").get("email"), criteria.getOwnerEmail()));
@@ -105,6 +123,26 @@ public class PropertySpecifications {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    // The text the way the search index analyzes it: lowercased, folded with the table of the index and every run of
+    // other characters than letters and digits turned into a single space, with a leading space before the first word
+    private static Expression<String> searchableText(CriteriaBuilder criteriaBuilder, Expression<String> column) {
+        Expression<String> folded = criteriaBuilder.function("translate", String.class, criteriaBuilder.lower(column),
+                criteriaBuilder.literal(TextAnalyzer.FOLD_FROM), criteriaBuilder.literal(TextAnalyzer.FOLD_TO));
+        return criteriaBuilder.concat(" ", criteriaBuilder.function("regexp_replace", String.class, folded,
+                criteriaBuilder.literal("[^[:alnum:]]+"), criteriaBuilder.literal(" "), criteriaBuilder.literal("g")));
+    }
+
+    // Every word of the search text has to prefix a word of the field, like the index matches it
+    private static Predicate prefixesAll(CriteriaBuilder criteriaBuilder, Expression<String> text, String search) {
+        return criteriaBuilder.and(TextAnalyzer.tokenize(search).stream()
+                .map(token -> prefixes(criteriaBuilder, text, token)).toArray(Predicate[]::new));
+    }
+
+    // Tokens hold only letters and digits, there is no LIKE wildcard to escape
+    private static Predicate prefixes(CriteriaBuilder criteriaBuilder, Expression<String> text, String token) {
+        return criteriaBuilder.like(text, "% " + token + "%");
+    }
 }
 
 
@@ -0,0 +1,132 @@
+package com.house.hunter.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Files of a storage directory are kept two levels deep under the first bytes of the SHA-256 of their name, ab/cd/name,
+// so no directory grows beyond a few thousand entries. The stored filenames stay as they are. Files written before the
+// layout lie flat in the directory until the migration moves them, lookups fall back to the flat path meanwhile.
+public final class StorageLayout {
+    // Order of the filenames within a shard, the order of their UTF-8 bytes as in the C collation of the database
+    public static final Comparator<String> NAME_ORDER = (first, second) ->
+            Arrays.compareUnsigned(first.getBytes(StandardCharsets.UTF_8), second.getBytes(StandardCharsets.UTF_8));
+    private static final Pattern SHARD_DIRECTORY = Pattern.compile("[0-9a-f]{2}");
+
+    private StorageLayout() {
+    }
+
+    public static Path shardedPath(Path root, String filename) {
+        String shard = shard(filename);
+        return root.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(filename);
+    }
+
+    // Hex of the first two bytes of the SHA-256 of the name, the directories of its file
+    public static String shard(String filename) {
+        return HexFormat.of().formatHex(digest(filename), 0, 2);
+    }
+
+    // Sharded files in storage order. Only one directory is listed at a time, memory stays bounded by the size of a
+    // shard. Flat files are not included.
+    public static Stream<Path> storageOrder(Path root) {
+        return shardDirectories(root).stream()
+                .flatMap(first -> shardDirectories(first).stream())
+                .flatMap(second -> {
+                    try (Stream<Path> files = Files.list(second)) {
+                        return files.filter(Files::isRegularFile)
+                                .sorted(Comparator.comparing(file -> file.getFileName().toString(), NAME_ORDER))
+                                .toList().stream();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    // Path the file is stored at, null when it exists in neither layout
+    public static Path locate(Path root, String filename) {
+        Path shardedPath = shardedPath(root, filename);
+        if (Files.isRegularFile(shardedPath)) {
+            return shardedPath;
+        }
+        Path flatPath = root.resolve(filename);
+        if (Files.isRegularFile(flatPath)) {
+            return flatPath;
+        }
+        // The migration may have moved the file between the two checks
+        return Files.isRegularFile(shardedPath) ? shardedPath : null;
+    }
+
+    // Path to write a new file to, its shard directories are created
+    public static Path prepare(Path root, String filename) throws IOException {
+        Path shardedPath = shardedPath(root, filename);
+        Files.createDirectories(shardedPath.getParent());
+        return shardedPath;
+    }
+
+    // The flat file is deleted first, a concurrent migration can then only have moved it to the sharded path
+    public static boolean delete(Path root, String filename) throws IOException {
+        boolean deleted = Files.deleteIfExists(root.resolve(filename));
+        return Files.deleteIfExists(shardedPath(root, filename)) || deleted;
+    }
+
+    // Moves the flat files of the directory into their shards and returns how many were moved. Every move is a single
+    // rename, readers find a file at one of its two paths throughout.
+    public static int migrate(Path root, Predicate<String> skip) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : files) {
+                String filename = file.getFileName().toString();
+                if (skip.test(filename)) {
+                    continue;
+                }
+                try {
+                    Files.move(file, prepare(root, filename), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    moved++;
+                } catch (NoSuchFileException e) {
+                    // Deleted since it was listed
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static List<Path> shardDirectories(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> directories = Files.list(directory)) {
+            return directories.filter(path -> SHARD_DIRECTORY.matcher(path.getFileName().toString()).matches())
+                    .filter(Files::isDirectory)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] digest(String filename) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(filename.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
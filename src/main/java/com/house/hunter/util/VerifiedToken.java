@@ -0,0 +1,7 @@
+package com.house.hunter.util;
+
+import java.time.Instant;
+
+// Claims of an access token whose signature has been checked, tokens issued before the epochs have epoch 0
+public record VerifiedToken(String email, String role, String status, long epoch, Instant expiresAt) {
+}
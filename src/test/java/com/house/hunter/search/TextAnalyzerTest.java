@@ -0,0 +1,62 @@
+package com.house.hunter.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TextAnalyzerTest {
+    // Written as escapes, the sources are not compiled as UTF-8 everywhere
+    private static final List<String> SAMPLES = List.of(
+            "\u017dlu\u0165ou\u010dk\u00fd k\u016f\u0148 \u00fap\u011bl \u010f\u00e1belsk\u00e9 \u00f3dy",
+            "\u010cesk\u00e9 Bud\u011bjovice, n\u00e1m. P\u0159emysla Otakara II.",
+            "\u0141\u00f3d\u017a", "Stra\u00dfe", "ni\u00f1o", "gar\u00e7on", "\u00d8rsted", "Ti\u1ebfng Vi\u1ec7t",
+            "Cafe\u0301 Praha-Vinohrady", "3+kk (75 m2)");
+
+    @Test
+    void databaseFallbackAnalyzesLikeTheIndex() {
+        for (String sample : SAMPLES) {
+            assertEquals(TextAnalyzer.tokenize(sample), databaseTokens(sample), sample);
+        }
+    }
+
+    @Test
+    void foldsLikeCanonicalDecomposition() {
+        for (String sample : SAMPLES) {
+            String lowercase = sample.toLowerCase(Locale.ROOT);
+            String decomposed = Normalizer.normalize(lowercase, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            // Stroked letters fold further than their decomposition
+            assertEquals(decomposed.replace('\u0142', 'l').replace('\u00f8', 'o'), TextAnalyzer.fold(sample), sample);
+        }
+    }
+
+    @Test
+    void tokenizesFoldedWords() {
+        assertEquals(List.of("zlutoucky", "kun", "upel", "dabelske", "ody"), TextAnalyzer.tokenize(SAMPLES.get(0)));
+        assertEquals(List.of("lodz"), TextAnalyzer.tokenize("\u0141\u00f3d\u017a"));
+        assertEquals(List.of("stra\u00dfe"), TextAnalyzer.tokenize("Stra\u00dfe"));
+        assertEquals(List.of("cafe", "praha", "vinohrady"), TextAnalyzer.tokenize("Cafe\u0301 Praha-Vinohrady"));
+    }
+
+    // What PropertySpecifications asks the database for: translate(lower(text), FOLD_FROM, FOLD_TO), then every run of
+    // characters that are not letters or digits replaced by a space
+    private static List<String> databaseTokens(String text) {
+        String lowercase = text.toLowerCase(Locale.ROOT);
+        StringBuilder translated = new StringBuilder();
+        for (int i = 0; i < lowercase.length(); i++) {
+            char character = lowercase.charAt(i);
+            int index = TextAnalyzer.FOLD_FROM.indexOf(character);
+            if (index < 0) {
+                translated.append(character);
+            } else if (index < TextAnalyzer.FOLD_TO.length()) {
+                translated.append(TextAnalyzer.FOLD_TO.charAt(index));
+            }
+        }
+        String searchable = " " + translated.toString().replaceAll("[^\\p{L}\\p{N}]+", " ");
+        return Arrays.stream(searchable.trim().split(" ")).filter(token -> !token.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,141 @@
+package com.house.hunter.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlobStoreTest {
+    private static final long SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storesAndReadsBlobs() throws IOException {
+        try (BlobStore store = new BlobStore(directory.resolve("blobs"), SEGMENT_SIZE)) {
+            byte[] first = bytes(1000, 1);
+            byte[] second = bytes(2000, 2);
+            store.put("first", file("first", first));
+            store.put("second", file("second", second));
+
+            assertArrayEquals(first, store.read("first"));
+            assertArrayEquals(second, store.read("second"));
+            assertArrayEquals(second, store.region("second").readAllBytes());
+            assertNull(store.read("missing"));
+            assertEquals(Set.of("first", "second"), store.names());
+        }
+    }
+
+    @Test
+    void storingANameAgainRenewsItsStoredAt() throws IOException, InterruptedException {
+        Path blobs = directory.resolve("blobs");
+        BlobStore.Location renewed;
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            Path source = file("image", bytes(1000, 1));
+            BlobStore.Location stored = store.put("image", source);
+            Thread.sleep(5);
+            renewed = store.put("image", source);
+
+            assertTrue(renewed.storedAt() > stored.storedAt());
+            assertEquals(stored.offset(), renewed.offset());
+            assertEquals(renewed, store.locate("image"));
+        }
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            assertEquals(renewed, store.locate("image"));
+        }
+    }
+
+    @Test
+    void replayRestoresPutsAndDeletes() throws IOException {
+        Path blobs = directory.resolve("blobs");
+        byte[] kept = bytes(3000, 1);
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            store.put("kept", file("kept", kept));
+            store.put("deleted", file("deleted", bytes(3000, 2)));
+            assertTrue(store.delete("deleted"));
+            assertFalse(store.delete("deleted"));
+        }
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            assertEquals(Set.of("kept"), store.names());
+            assertArrayEquals(kept, store.read("kept"));
+        }
+    }
+
+    @Test
+    void replayDropsATruncatedRecord() throws IOException {
+        Path blobs = directory.resolve("blobs");
+        byte[] kept = bytes(1000, 1);
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            store.put("kept", file("kept", kept));
+            store.put("cut", file("cut", bytes(1000, 2)));
+        }
+        Path index = blobs.resolve("index.log");
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        long truncatedLength = Files.size(index);
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            assertEquals(Set.of("kept"), store.names());
+            assertArrayEquals(kept, store.read("kept"));
+            assertTrue(Files.size(index) < truncatedLength);
+            // Records appended after the recovery are read back
+            byte[] added = bytes(500, 3);
+            store.put("added", file("added", added));
+        }
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            assertEquals(Set.of("kept", "added"), store.names());
+        }
+    }
+
+    @Test
+    void compactionMovesLiveBlobsAndKeepsTheirStoredAt() throws IOException {
+        Path blobs = directory.resolve("blobs");
+        byte[] live = bytes(20 * 1024, 1);
+        BlobStore.Location before;
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            before = store.put("live", file("live", live));
+            store.put("garbage", file("garbage", bytes(40 * 1024, 2)));
+            // Seals the first segment
+            store.put("next", file("next", bytes(30 * 1024, 3)));
+            store.delete("garbage");
+
+            long reclaimed = store.compact(0.5);
+            assertEquals(40 * 1024, reclaimed);
+            BlobStore.Location after = store.locate("live");
+            assertTrue(after.segment() > before.segment());
+            assertEquals(before.storedAt(), after.storedAt());
+            assertArrayEquals(live, store.read("live"));
+
+            // The retired segment is deleted by the next compaction
+            store.compact(0.5);
+            assertFalse(Files.exists(blobs.resolve("segment-000000.dat")));
+        }
+        try (BlobStore store = new BlobStore(blobs, SEGMENT_SIZE)) {
+            assertEquals(Set.of("live", "next"), store.names());
+            assertArrayEquals(live, store.read("live"));
+        }
+    }
+
+    private Path file(String name, byte[] bytes) throws IOException {
+        return Files.write(directory.resolve(name), bytes);
+    }
+
+    private static byte[] bytes(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,113 @@
+package com.house.hunter.storage;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageCacheTest {
+    private static final int MB = 1024 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void evictingEveryEntryReturnsAllBlocks() throws IOException {
+        ImageCache cache = new ImageCache(3L * MB, MB, new SimpleMeterRegistry());
+        FileRegion[] regions = new FileRegion[3];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = file("image-" + i, MB, i);
+            assertArrayEquals(Files.readAllBytes(regions[i].file()), cache.read(regions[i]));
+        }
+        for (FileRegion region : regions) {
+            cache.evict(region);
+        }
+        assertEquals(0, cache.cachedBytes());
+        assertEquals(0, cache.entryCount());
+
+        // The blocks are handed out again without two entries sharing one
+        for (FileRegion region : regions) {
+            cache.read(region);
+        }
+        assertEquals(3, cache.entryCount());
+        for (FileRegion region : regions) {
+            assertArrayEquals(Files.readAllBytes(region.file()), cache.read(region));
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() throws IOException {
+        ImageCache cache = new ImageCache(MB, MB, new SimpleMeterRegistry());
+        FileRegion first = file("first", 600 * 1024, 1);
+        FileRegion second = file("second", 600 * 1024, 2);
+        cache.read(first);
+        cache.read(second);
+
+        assertEquals(1, cache.entryCount());
+        assertEquals(600 * 1024, cache.cachedBytes());
+        assertArrayEquals(Files.readAllBytes(second.file()), cache.read(second));
+        assertArrayEquals(Files.readAllBytes(first.file()), cache.read(first));
+    }
+
+    @Test
+    void leasedEntryKeepsItsBlocksUntilClosed() throws IOException {
+        ImageCache cache = new ImageCache(MB, MB, new SimpleMeterRegistry());
+        FileRegion first = file("first", 600 * 1024, 1);
+        FileRegion second = file("second", 600 * 1024, 2);
+        byte[] expected = Files.readAllBytes(first.file());
+
+        ImageCache.Lease lease = cache.lease(first);
+        assertNotNull(lease);
+        cache.evict(first);
+        assertEquals(0, cache.cachedBytes());
+        // Only the blocks not held by the lease are free
+        assertNull(cache.lease(second));
+        assertArrayEquals(Files.readAllBytes(second.file()), cache.read(second));
+        assertArrayEquals(expected, lease.toByteArray());
+
+        lease.close();
+        try (ImageCache.Lease secondLease = cache.lease(second)) {
+            assertNotNull(secondLease);
+            assertArrayEquals(Files.readAllBytes(second.file()), secondLease.toByteArray());
+        }
+    }
+
+    @Test
+    void regionsOfOneFileAreCachedSeparately() throws IOException {
+        ImageCache cache = new ImageCache(MB, MB, new SimpleMeterRegistry());
+        FileRegion whole = file("segment", 100 * 1024, 3);
+        byte[] bytes = Files.readAllBytes(whole.file());
+        FileRegion head = new FileRegion(whole.file(), 0, 1000, "head");
+        FileRegion tail = new FileRegion(whole.file(), 50 * 1024, 20000, "tail");
+
+        assertArrayEquals(java.util.Arrays.copyOfRange(bytes, 0, 1000), cache.read(head));
+        assertArrayEquals(java.util.Arrays.copyOfRange(bytes, 50 * 1024, 50 * 1024 + 20000), cache.read(tail));
+        assertEquals(2, cache.entryCount());
+        assertEquals(21000, cache.cachedBytes());
+    }
+
+    @Test
+    void regionLargerThanAnEntryIsNotCached() throws IOException {
+        ImageCache cache = new ImageCache(2L * MB, 64 * 1024, new SimpleMeterRegistry());
+        FileRegion large = file("large", 100 * 1024, 4);
+
+        assertNull(cache.lease(large));
+        assertArrayEquals(Files.readAllBytes(large.file()), cache.read(large));
+        assertEquals(0, cache.entryCount());
+    }
+
+    private FileRegion file(String name, int size, long seed) throws IOException {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return FileRegion.of(Files.write(directory.resolve(name), bytes));
+    }
+}